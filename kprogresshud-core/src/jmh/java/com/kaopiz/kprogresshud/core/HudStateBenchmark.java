@@ -0,0 +1,74 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the show and dismiss transitions and of advancing the spinner by one frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HudStateBenchmark {
+
+    private static final long FRAME_NANOS = 16666667;
+
+    private final GraceTimer mNoGrace = new GraceTimer();
+    private final GraceTimer mGrace = new GraceTimer();
+    private final SpinClock mClock = new SpinClock(12, 12);
+    private long mFrameTime;
+
+    @Setup
+    public void setUp() {
+        mGrace.setGraceTime(300);
+        mClock.setSpeed(1.5f);
+    }
+
+    @Benchmark
+    public boolean showDismiss() {
+        mNoGrace.requestShow();
+        return mNoGrace.dismiss();
+    }
+
+    @Benchmark
+    public boolean graceShowDismiss() {
+        mGrace.requestShow();
+        boolean shown = mGrace.onGraceElapsed();
+        return mGrace.dismiss() | shown;
+    }
+
+    @Benchmark
+    public boolean graceCancelled() {
+        mGrace.requestShow();
+        return mGrace.dismiss();
+    }
+
+    @Benchmark
+    public int spinFrame() {
+        mFrameTime += FRAME_NANOS;
+        return mClock.advance(mFrameTime);
+    }
+}
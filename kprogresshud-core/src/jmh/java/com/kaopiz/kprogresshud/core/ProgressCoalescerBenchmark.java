@@ -0,0 +1,71 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reporting progress through the coalescer, alone and with several worker threads
+ * reporting while the main thread drains.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProgressCoalescerBenchmark {
+
+    private final ProgressCoalescer mCoalescer = new ProgressCoalescer();
+    private long mValue;
+
+    @Benchmark
+    public boolean offerUncontended() {
+        return mCoalescer.offer(++mValue);
+    }
+
+    @Benchmark
+    public long offerAndDrain() {
+        mCoalescer.offer(++mValue);
+        return mCoalescer.drain();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public boolean workers(WorkerState worker) {
+        return mCoalescer.offer(++worker.value);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public long mainThread() {
+        return mCoalescer.drain();
+    }
+
+    @State(Scope.Thread)
+    public static class WorkerState {
+        long value;
+    }
+}
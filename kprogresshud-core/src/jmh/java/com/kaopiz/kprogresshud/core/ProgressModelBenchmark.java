@@ -0,0 +1,85 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the progress computation done for every applied update: scaling for int indicators,
+ * the auto-dismiss check and quantization to the rendered resolution.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProgressModelBenchmark {
+
+    // An int sized max, and one that needs scaling
+    @Param({"100", "10000000000"})
+    public long max;
+
+    private final ProgressModel mModel = new ProgressModel();
+    private final RateEstimator mEstimator = new RateEstimator();
+    private long mProgress;
+    private long mTimeNanos;
+
+    @Setup
+    public void setUp() {
+        mModel.setMax(max);
+        mModel.setAutoDismiss(true);
+    }
+
+    private long nextProgress() {
+        mProgress = mProgress < max ? mProgress + 1 : 0;
+        return mProgress;
+    }
+
+    @Benchmark
+    public int toIntProgress() {
+        return mModel.toIntProgress(nextProgress());
+    }
+
+    @Benchmark
+    public boolean isComplete() {
+        return mModel.isComplete(nextProgress());
+    }
+
+    @Benchmark
+    public int quantizeArc() {
+        return ProgressModel.quantize(nextProgress(), max, 1440);
+    }
+
+    @Benchmark
+    public float fraction() {
+        return ProgressModel.fraction(nextProgress(), max);
+    }
+
+    @Benchmark
+    public long rateEstimate() {
+        mTimeNanos += 16666667;
+        mEstimator.update(nextProgress(), mTimeNanos);
+        return mEstimator.getRemainingNanos(max);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud.core;
+
+/**
+ * Pacing of a stepped spinner: instead of waking up on every display frame, the spinner only
+ * wakes up for the frame its next step is due on, and shows fewer steps when saving power.
+ * With power saving it advances two steps per update, so it turns at the same speed with half
+ * the frames. While its window is unfocused it updates a few times per second, and while the
+ * window is hidden it does not update at all. Not thread-safe.
+ */
+public final class FramePacer {
+
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 1000000000L / 60;
+    // Steps advanced per update when saving power, and while the window is unfocused
+    private static final int LOW_POWER_STRIDE = 2;
+    private static final int BACKGROUND_STRIDE = 4;
+
+    private long mFrameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+    private boolean mLowPower;
+    private boolean mFocused = true;
+    private boolean mVisible = true;
+
+    /**
+     * @param refreshRate Refresh rate of the display in Hz, e.g. 60, 90 or 120
+     */
+    public void setRefreshRate(float refreshRate) {
+        mFrameIntervalNanos = refreshRate >= 1
+                ? (long) (1e9 / refreshRate) : DEFAULT_FRAME_INTERVAL_NANOS;
+    }
+
+    public long getFrameIntervalNanos() {
+        return mFrameIntervalNanos;
+    }
+
+    public void setLowPower(boolean lowPower) {
+        mLowPower = lowPower;
+    }
+
+    public void setFocused(boolean focused) {
+        mFocused = focused;
+    }
+
+    public void setVisible(boolean visible) {
+        mVisible = visible;
+    }
+
+    /**
+     * @return true if the spinner should not update at all
+     */
+    public boolean isPaused() {
+        return !mVisible;
+    }
+
+    /**
+     * @return Number of steps advanced per update
+     */
+    public int getStride() {
+        if (!mFocused) return BACKGROUND_STRIDE;
+        return mLowPower ? LOW_POWER_STRIDE : 1;
+    }
+
+    /**
+     * @return The time ahead of a frame to look for due steps, so that a step lands on the
+     * frame nearest to when it is due rather than always on the frame after
+     */
+    public long getLookAheadNanos() {
+        return mFrameIntervalNanos / 2;
+    }
+
+    /**
+     * @param nanosUntilStep Time until the next step to show is due
+     * @return Delay before the next wake-up
+     */
+    public long getWakeUpDelayNanos(long nanosUntilStep) {
+        return Math.max(0, nanosUntilStep - getLookAheadNanos());
+    }
+}
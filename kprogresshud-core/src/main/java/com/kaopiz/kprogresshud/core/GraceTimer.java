@@ -0,0 +1,95 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud.core;
+
+/**
+ * Show scheduling of a HUD with a grace time: a show request only makes the HUD appear once the
+ * grace time has passed, and a dismiss before that cancels it. The timer only decides, the
+ * caller posts and removes the delayed show. Not thread-safe.
+ */
+public final class GraceTimer {
+
+    /**
+     * Returned by {@link #requestShow()} when a show is already pending.
+     */
+    public static final long PENDING = -1;
+
+    private int mGraceTimeMs;
+    private boolean mPending;
+    private boolean mFinished;
+
+    public void setGraceTime(int graceTimeMs) {
+        mGraceTimeMs = graceTimeMs;
+    }
+
+    public int getGraceTime() {
+        return mGraceTimeMs;
+    }
+
+    /**
+     * Request the HUD to be shown.
+     * @return 0 to show now, the delay after which to call {@link #onGraceElapsed()},
+     * or {@link #PENDING} if nothing needs to be done
+     */
+    public long requestShow() {
+        if (mPending) return PENDING;
+        mFinished = false;
+        if (mGraceTimeMs <= 0) return 0;
+        mPending = true;
+        return mGraceTimeMs;
+    }
+
+    /**
+     * @return true if the HUD should be shown now
+     */
+    public boolean onGraceElapsed() {
+        boolean show = mPending && !mFinished;
+        mPending = false;
+        return show;
+    }
+
+    /**
+     * Record a dismiss.
+     * @return true if a pending show was cancelled and its delayed call must be removed
+     */
+    public boolean dismiss() {
+        mFinished = true;
+        boolean wasPending = mPending;
+        mPending = false;
+        return wasPending;
+    }
+
+    public boolean isPending() {
+        return mPending;
+    }
+
+    public void reset() {
+        mGraceTimeMs = 0;
+        mPending = false;
+        mFinished = false;
+    }
+
+    /**
+     * Time a HUD still has to stay visible to honour a minimum show time.
+     * @param requestTimeMs When the show was requested, the HUD appeared one grace time later
+     * @return Remaining time in milliseconds, 0 or less if it may be dismissed now
+     */
+    public static long remainingShowTime(long requestTimeMs, int graceTimeMs,
+                                         int minShowTimeMs, long nowMs) {
+        return requestTimeMs + graceTimeMs + minShowTimeMs - nowMs;
+    }
+}
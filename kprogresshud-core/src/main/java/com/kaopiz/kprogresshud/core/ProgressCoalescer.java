@@ -0,0 +1,56 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud.core;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latest-wins hand-off of progress values from any number of threads to one consumer.
+ * Producers never block or allocate: only the first value offered after a drain asks the
+ * caller to schedule another drain, every later one simply replaces the pending value.
+ */
+public final class ProgressCoalescer {
+
+    private final AtomicLong mPending = new AtomicLong();
+    private final AtomicBoolean mScheduled = new AtomicBoolean();
+
+    /**
+     * Store a value. May be called from any thread.
+     * @return true if the caller must schedule a {@link #drain()}
+     */
+    public boolean offer(long value) {
+        mPending.set(value);
+        return mScheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Take the latest value. Called by the consumer once per scheduled drain.
+     */
+    public long drain() {
+        // Clear the flag first so that a value stored after the read schedules another drain
+        mScheduled.set(false);
+        return mPending.get();
+    }
+
+    /**
+     * Forget a scheduled drain, e.g. after its callback was removed.
+     */
+    public void cancel() {
+        mScheduled.set(false);
+    }
+}
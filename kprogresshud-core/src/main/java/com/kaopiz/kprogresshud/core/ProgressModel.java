@@ -0,0 +1,105 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud.core;
+
+/**
+ * Determinate progress state of a HUD: the max value, the scaling of 64-bit values onto the
+ * int range of simple indicators, and the auto-dismiss rule. The max may be read from any
+ * thread, everything else belongs to the thread applying progress.
+ */
+public final class ProgressModel {
+
+    private volatile long mMax;
+    // Maps long progress onto the int range of indicators that only take int values
+    private volatile double mIntScale = 1;
+    private boolean mAutoDismiss = true;
+
+    public void setMax(long max) {
+        mMax = max;
+        mIntScale = max > Integer.MAX_VALUE ? (double) Integer.MAX_VALUE / max : 1;
+    }
+
+    public long getMax() {
+        return mMax;
+    }
+
+    /**
+     * @return The max clamped to the int range
+     */
+    public int getIntMax() {
+        return (int) Math.min(mMax, Integer.MAX_VALUE);
+    }
+
+    public void setAutoDismiss(boolean autoDismiss) {
+        mAutoDismiss = autoDismiss;
+    }
+
+    public boolean isAutoDismiss() {
+        return mAutoDismiss;
+    }
+
+    /**
+     * @return The progress value for a fraction of the max, fraction from 0 to 1
+     */
+    public long fromFraction(float fraction) {
+        return (long) (fraction * (double) mMax);
+    }
+
+    /**
+     * @return The progress scaled like the max in {@link #getIntMax()}, clamped from 0 to
+     * {@link Integer#MAX_VALUE} so that values past the max cannot wrap around
+     */
+    public int toIntProgress(long progress) {
+        double scale = mIntScale;
+        long scaled = scale == 1 ? progress : (long) (progress * scale);
+        return (int) Math.max(0, Math.min(scaled, Integer.MAX_VALUE));
+    }
+
+    /**
+     * @return true if the HUD should dismiss itself at this progress
+     */
+    public boolean isComplete(long progress) {
+        return mAutoDismiss && progress >= mMax;
+    }
+
+    public void reset() {
+        setMax(0);
+        mAutoDismiss = true;
+    }
+
+    /**
+     * Quantize progress to the resolution an indicator can actually render, so that changes
+     * too small to see can be skipped.
+     * @param steps Number of distinct positions of the indicator, e.g. pixels of a bar
+     * @return The position from 0 to steps
+     */
+    public static int quantize(long progress, long max, int steps) {
+        if (max <= 0 || progress <= 0) return 0;
+        if (progress >= max) return steps;
+        // In double, so that progress near the top of the long range cannot overflow
+        return (int) ((double) progress / max * steps);
+    }
+
+    /**
+     * @return progress / max, clamped from 0 to 1
+     */
+    public static float fraction(long progress, long max) {
+        if (max <= 0 || progress <= 0) return 0;
+        if (progress >= max) return 1;
+        return (float) ((double) progress / max);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud.core;
+
+/**
+ * Incremental estimate of progress rate and remaining time. Keeps an exponentially weighted
+ * moving average of the rate, weighted by the time between samples, so irregular updates
+ * count as much as their duration. Each update is O(1) and does not allocate. Not thread-safe.
+ */
+public final class RateEstimator {
+
+    public static final long DEFAULT_TIME_CONSTANT_MS = 2000;
+
+    private final double mTimeConstantNanos;
+    private boolean mStarted;
+    private boolean mHasRate;
+    private long mLastProgress;
+    private long mLastTimeNanos;
+    private double mRate;
+
+    public RateEstimator() {
+        this(DEFAULT_TIME_CONSTANT_MS);
+    }
+
+    /**
+     * @param timeConstantMs How quickly the estimate follows changes: a sample that old still
+     * has about a third of the weight of the latest one
+     */
+    public RateEstimator(long timeConstantMs) {
+        mTimeConstantNanos = Math.max(1, timeConstantMs) * 1e6;
+    }
+
+    public void reset() {
+        mStarted = false;
+        mHasRate = false;
+        mRate = 0;
+    }
+
+    /**
+     * @param progress Current progress value
+     * @param timeNanos When it was reached, in the {@link System#nanoTime()} time base
+     */
+    public void update(long progress, long timeNanos) {
+        if (!mStarted || progress < mLastProgress) {
+            // First sample, or progress went back as for a restarted transfer
+            mStarted = true;
+            mHasRate = false;
+            mLastProgress = progress;
+            mLastTimeNanos = timeNanos;
+            return;
+        }
+        long elapsed = timeNanos - mLastTimeNanos;
+        if (elapsed <= 0) return;
+        double rate = (progress - mLastProgress) * 1e9 / elapsed;
+        if (mHasRate) {
+            mRate += (1 - Math.exp(-elapsed / mTimeConstantNanos)) * (rate - mRate);
+        } else {
+            mRate = rate;
+            mHasRate = true;
+        }
+        mLastProgress = progress;
+        mLastTimeNanos = timeNanos;
+    }
+
+    public boolean hasEstimate() {
+        return mHasRate;
+    }
+
+    /**
+     * @return Progress per second, 0 until two samples were seen
+     */
+    public double getRate() {
+        return mRate;
+    }
+
+    /**
+     * @return Estimated time until progress reaches max, -1 if unknown
+     */
+    public long getRemainingNanos(long max) {
+        if (!mHasRate || mRate <= 0) return -1;
+        double remaining = Math.max(0, max - mLastProgress) / mRate * 1e9;
+        return remaining >= Long.MAX_VALUE ? -1 : (long) remaining;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud.core;
+
+/**
+ * Advances a stepped spinner by elapsed frame time, scaled by the animation speed. The spinner
+ * moves at the same pace whatever the frame rate, and a frame that does not reach the next
+ * step returns the same step, so the caller can skip redrawing.
+ */
+public final class SpinClock {
+
+    private final int mSteps;
+    private final float mStepsPerSecond;
+    private float mSpeed = 1;
+    // Animation progress measured in steps
+    private double mPhase;
+    private long mLastFrameNanos;
+
+    public SpinClock(int steps, float stepsPerSecond) {
+        mSteps = steps;
+        mStepsPerSecond = stepsPerSecond;
+    }
+
+    public void setSpeed(float speed) {
+        mSpeed = speed;
+    }
+
+    public float getSpeed() {
+        return mSpeed;
+    }
+
+    /**
+     * Restart timing from the next frame, keeping the current step.
+     */
+    public void restart() {
+        mLastFrameNanos = 0;
+    }
+
+    /**
+     * @param frameTimeNanos Time of the frame being rendered
+     * @return The step to show in this frame, from 0 to steps - 1
+     */
+    public int advance(long frameTimeNanos) {
+        if (mLastFrameNanos != 0) {
+            mPhase += (frameTimeNanos - mLastFrameNanos) * mStepsPerSecond * mSpeed / 1e9;
+            mPhase %= mSteps;
+        }
+        mLastFrameNanos = frameTimeNanos;
+        return (int) mPhase;
+    }
+
+    /**
+     * @return The step due at the given time, without advancing the clock
+     */
+    public int stepAt(long timeNanos) {
+        if (mLastFrameNanos == 0) return (int) mPhase;
+        double phase = mPhase + (timeNanos - mLastFrameNanos) * mStepsPerSecond * mSpeed / 1e9;
+        return (int) (phase % mSteps);
+    }
+
+    /**
+     * @param step The step to wait for, may be past steps - 1 to wait across the wrap around
+     * @return Time from the last advanced frame until the step is due, Long.MAX_VALUE if
+     * the spinner does not move
+     */
+    public long nanosUntilStep(int step) {
+        double rate = mStepsPerSecond * mSpeed;
+        if (rate <= 0) return Long.MAX_VALUE;
+        double steps = step - mPhase;
+        while (steps <= 0) {
+            steps += mSteps;
+        }
+        return (long) (steps / rate * 1e9);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.kaopiz.kprogresshud.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FramePacerTest {
+
+    @Test
+    public void frameIntervalFollowsTheRefreshRate() {
+        FramePacer pacer = new FramePacer();
+        assertEquals(1000000000L / 60, pacer.getFrameIntervalNanos());
+        pacer.setRefreshRate(120);
+        assertEquals(1000000000L / 120, pacer.getFrameIntervalNanos());
+        pacer.setRefreshRate(0);
+        assertEquals(1000000000L / 60, pacer.getFrameIntervalNanos());
+    }
+
+    @Test
+    public void strideDependsOnPowerAndFocus() {
+        FramePacer pacer = new FramePacer();
+        assertEquals(1, pacer.getStride());
+        pacer.setLowPower(true);
+        assertEquals(2, pacer.getStride());
+        pacer.setFocused(false);
+        assertEquals(4, pacer.getStride());
+        pacer.setLowPower(false);
+        assertEquals(4, pacer.getStride());
+        pacer.setFocused(true);
+        assertEquals(1, pacer.getStride());
+    }
+
+    @Test
+    public void pausedWhileHidden() {
+        FramePacer pacer = new FramePacer();
+        assertFalse(pacer.isPaused());
+        pacer.setVisible(false);
+        assertTrue(pacer.isPaused());
+        pacer.setVisible(true);
+        assertFalse(pacer.isPaused());
+    }
+
+    @Test
+    public void wakesUpHalfAFrameBeforeTheStepIsDue() {
+        FramePacer pacer = new FramePacer();
+        pacer.setRefreshRate(60);
+        long lookAhead = pacer.getLookAheadNanos();
+        assertEquals(pacer.getFrameIntervalNanos() / 2, lookAhead);
+        assertEquals(100000000L - lookAhead, pacer.getWakeUpDelayNanos(100000000L));
+        assertEquals(0, pacer.getWakeUpDelayNanos(lookAhead / 2));
+    }
+}
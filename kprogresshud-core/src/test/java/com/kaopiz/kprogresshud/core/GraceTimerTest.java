@@ -0,0 +1,91 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.kaopiz.kprogresshud.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GraceTimerTest {
+
+    @Test
+    public void showsRightAwayWithoutGraceTime() {
+        GraceTimer timer = new GraceTimer();
+        assertEquals(0, timer.requestShow());
+        assertFalse(timer.isPending());
+    }
+
+    @Test
+    public void delaysTheShowByTheGraceTime() {
+        GraceTimer timer = new GraceTimer();
+        timer.setGraceTime(300);
+        assertEquals(300, timer.requestShow());
+        assertTrue(timer.isPending());
+        assertEquals(GraceTimer.PENDING, timer.requestShow());
+        assertTrue(timer.onGraceElapsed());
+        assertFalse(timer.isPending());
+    }
+
+    @Test
+    public void dismissDuringTheGraceTimeCancelsTheShow() {
+        GraceTimer timer = new GraceTimer();
+        timer.setGraceTime(300);
+        timer.requestShow();
+        assertTrue(timer.dismiss());
+        assertFalse(timer.isPending());
+        assertFalse(timer.onGraceElapsed());
+    }
+
+    @Test
+    public void dismissWithoutPendingShowHasNothingToCancel() {
+        GraceTimer timer = new GraceTimer();
+        timer.setGraceTime(300);
+        assertFalse(timer.dismiss());
+        timer.requestShow();
+        timer.onGraceElapsed();
+        assertFalse(timer.dismiss());
+    }
+
+    @Test
+    public void showAfterDismissIsDelayedAgain() {
+        GraceTimer timer = new GraceTimer();
+        timer.setGraceTime(300);
+        timer.requestShow();
+        timer.dismiss();
+        assertEquals(300, timer.requestShow());
+        assertTrue(timer.onGraceElapsed());
+    }
+
+    @Test
+    public void resetClearsTheGraceTime() {
+        GraceTimer timer = new GraceTimer();
+        timer.setGraceTime(300);
+        timer.requestShow();
+        timer.reset();
+        assertEquals(0, timer.getGraceTime());
+        assertFalse(timer.isPending());
+        assertEquals(0, timer.requestShow());
+    }
+
+    @Test
+    public void remainingShowTimeCountsFromTheEndOfTheGraceTime() {
+        assertEquals(400, GraceTimer.remainingShowTime(1000, 200, 500, 1300));
+        assertEquals(0, GraceTimer.remainingShowTime(1000, 200, 500, 1700));
+        assertTrue(GraceTimer.remainingShowTime(1000, 0, 500, 2000) < 0);
+    }
+}
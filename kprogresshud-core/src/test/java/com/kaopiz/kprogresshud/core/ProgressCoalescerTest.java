@@ -0,0 +1,84 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.kaopiz.kprogresshud.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressCoalescerTest {
+
+    @Test
+    public void onlyTheFirstOfferSchedulesADrain() {
+        ProgressCoalescer coalescer = new ProgressCoalescer();
+        assertTrue(coalescer.offer(1));
+        assertFalse(coalescer.offer(2));
+        assertFalse(coalescer.offer(3));
+        assertEquals(3, coalescer.drain());
+        assertTrue(coalescer.offer(4));
+    }
+
+    @Test
+    public void cancelLetsTheNextOfferSchedule() {
+        ProgressCoalescer coalescer = new ProgressCoalescer();
+        assertTrue(coalescer.offer(1));
+        coalescer.cancel();
+        assertTrue(coalescer.offer(2));
+        assertEquals(2, coalescer.drain());
+    }
+
+    @Test
+    public void drainKeepsTheLatestValue() {
+        ProgressCoalescer coalescer = new ProgressCoalescer();
+        coalescer.offer(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, coalescer.drain());
+        assertEquals(Long.MAX_VALUE, coalescer.drain());
+    }
+
+    @Test
+    public void concurrentProducersScheduleOnePendingDrain() throws Exception {
+        final ProgressCoalescer coalescer = new ProgressCoalescer();
+        final int values = 100000;
+        final int[] schedules = new int[4];
+        Thread[] producers = new Thread[schedules.length];
+        for (int i = 0; i < producers.length; i++) {
+            final int index = i;
+            producers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int value = 1; value <= values; value++) {
+                        if (coalescer.offer(value)) {
+                            schedules[index]++;
+                        }
+                    }
+                }
+            });
+            producers[i].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        int scheduled = 0;
+        for (int count : schedules) {
+            scheduled += count;
+        }
+        // Nothing drained meanwhile, so a single drain was asked for
+        assertEquals(1, scheduled);
+        assertEquals(values, coalescer.drain());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.kaopiz.kprogresshud.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressModelTest {
+
+    @Test
+    public void quantizeClampsToTheSteps() {
+        assertEquals(0, ProgressModel.quantize(-5, 100, 10));
+        assertEquals(0, ProgressModel.quantize(0, 100, 10));
+        assertEquals(5, ProgressModel.quantize(50, 100, 10));
+        assertEquals(10, ProgressModel.quantize(100, 100, 10));
+        assertEquals(10, ProgressModel.quantize(150, 100, 10));
+    }
+
+    @Test
+    public void quantizeWithoutMaxIsZero() {
+        assertEquals(0, ProgressModel.quantize(50, 0, 10));
+        assertEquals(0, ProgressModel.quantize(50, -1, 10));
+    }
+
+    @Test
+    public void quantizeDoesNotOverflowNearTheTopOfTheLongRange() {
+        assertEquals(500, ProgressModel.quantize(Long.MAX_VALUE / 2, Long.MAX_VALUE, 1000));
+        int step = ProgressModel.quantize(Long.MAX_VALUE - 1, Long.MAX_VALUE, 1440);
+        assertTrue(step >= 1439 && step <= 1440);
+    }
+
+    @Test
+    public void fractionIsClamped() {
+        assertEquals(0f, ProgressModel.fraction(-1, 100), 0f);
+        assertEquals(0.25f, ProgressModel.fraction(25, 100), 0f);
+        assertEquals(1f, ProgressModel.fraction(200, 100), 0f);
+        assertEquals(0f, ProgressModel.fraction(25, 0), 0f);
+        assertEquals(0.5f, ProgressModel.fraction(Long.MAX_VALUE / 2, Long.MAX_VALUE), 1e-6f);
+    }
+
+    @Test
+    public void smallMaxIsNotScaled() {
+        ProgressModel model = new ProgressModel();
+        model.setMax(1000);
+        assertEquals(1000, model.getIntMax());
+        assertEquals(42, model.toIntProgress(42));
+    }
+
+    @Test
+    public void progressPastTheIntRangeDoesNotWrap() {
+        ProgressModel model = new ProgressModel();
+        model.setMax(100);
+        assertEquals(Integer.MAX_VALUE, model.toIntProgress(1L << 32));
+        assertEquals(Integer.MAX_VALUE, model.toIntProgress(Long.MAX_VALUE));
+        assertEquals(0, model.toIntProgress(-1));
+        assertEquals(0, model.toIntProgress(Long.MIN_VALUE));
+        model.setMax(10000000000L);
+        assertEquals(Integer.MAX_VALUE, model.toIntProgress(Long.MAX_VALUE));
+        assertEquals(0, model.toIntProgress(-10000000000L));
+    }
+
+    @Test
+    public void largeMaxIsScaledOntoTheIntRange() {
+        ProgressModel model = new ProgressModel();
+        model.setMax(10000000000L);
+        assertEquals(Integer.MAX_VALUE, model.getIntMax());
+        assertEquals(Integer.MAX_VALUE / 2, model.toIntProgress(5000000000L), 1);
+        assertEquals(Integer.MAX_VALUE, model.toIntProgress(10000000000L), 1);
+        assertEquals(0, model.toIntProgress(0));
+    }
+
+    @Test
+    public void fromFractionUsesTheWholeRange() {
+        ProgressModel model = new ProgressModel();
+        model.setMax(200);
+        assertEquals(100, model.fromFraction(0.5f));
+        model.setMax(1L << 40);
+        assertEquals(1L << 39, model.fromFraction(0.5f));
+    }
+
+    @Test
+    public void completesAtMaxOnlyWithAutoDismiss() {
+        ProgressModel model = new ProgressModel();
+        model.setMax(100);
+        assertFalse(model.isComplete(99));
+        assertTrue(model.isComplete(100));
+        assertTrue(model.isComplete(101));
+        model.setAutoDismiss(false);
+        assertFalse(model.isComplete(100));
+    }
+
+    @Test
+    public void resetRestoresDefaults() {
+        ProgressModel model = new ProgressModel();
+        model.setMax(10000000000L);
+        model.setAutoDismiss(false);
+        model.reset();
+        assertEquals(0, model.getMax());
+        assertTrue(model.isAutoDismiss());
+        assertEquals(7, model.toIntProgress(7));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.kaopiz.kprogresshud.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RateEstimatorTest {
+
+    private static final long MS = 1000000L;
+
+    @Test
+    public void noEstimateBeforeTwoSamples() {
+        RateEstimator estimator = new RateEstimator();
+        assertFalse(estimator.hasEstimate());
+        assertEquals(-1, estimator.getRemainingNanos(100));
+        estimator.update(0, 0);
+        assertFalse(estimator.hasEstimate());
+        assertEquals(0, estimator.getRate(), 0);
+    }
+
+    @Test
+    public void steadyRate() {
+        RateEstimator estimator = new RateEstimator();
+        long progress = 0;
+        for (long time = 0; time <= 5000 * MS; time += 100 * MS) {
+            estimator.update(progress, time);
+            progress += 1000;
+        }
+        progress -= 1000;
+        assertTrue(estimator.hasEstimate());
+        assertEquals(10000, estimator.getRate(), 1e-6);
+        assertEquals(5000 * MS, estimator.getRemainingNanos(progress + 50000), MS);
+        assertEquals(0, estimator.getRemainingNanos(progress));
+    }
+
+    @Test
+    public void followsARateChange() {
+        RateEstimator estimator = new RateEstimator(2000);
+        long progress = 0;
+        long time = 0;
+        for (; time < 10000 * MS; time += 100 * MS) {
+            estimator.update(progress, time);
+            progress += 1000;
+        }
+        // Twice as fast for five time constants
+        for (; time < 20000 * MS; time += 100 * MS) {
+            estimator.update(progress, time);
+            progress += 2000;
+        }
+        assertEquals(20000, estimator.getRate(), 20000 * 0.01);
+    }
+
+    @Test
+    public void shortBurstBarelyMovesTheEstimate() {
+        RateEstimator estimator = new RateEstimator(2000);
+        long progress = 0;
+        long time = 0;
+        for (; time <= 10000 * MS; time += 100 * MS) {
+            estimator.update(progress, time);
+            progress += 1000;
+        }
+        // 1000 items within a millisecond, weighted by its duration rather than counted as
+        // one sample among others
+        estimator.update(progress + 1000, time + MS);
+        assertEquals(10000, estimator.getRate(), 1000);
+    }
+
+    @Test
+    public void progressGoingBackRestarts() {
+        RateEstimator estimator = new RateEstimator();
+        estimator.update(0, 0);
+        estimator.update(1000, 100 * MS);
+        assertTrue(estimator.hasEstimate());
+        estimator.update(10, 200 * MS);
+        assertFalse(estimator.hasEstimate());
+        assertEquals(-1, estimator.getRemainingNanos(100));
+    }
+
+    @Test
+    public void sampleWithoutElapsedTimeIsIgnored() {
+        RateEstimator estimator = new RateEstimator();
+        estimator.update(0, 0);
+        estimator.update(1000, 100 * MS);
+        estimator.update(5000, 100 * MS);
+        assertEquals(10000, estimator.getRate(), 1e-6);
+    }
+
+    @Test
+    public void stalledTransferHasNoRemainingTime() {
+        RateEstimator estimator = new RateEstimator();
+        estimator.update(100, 0);
+        estimator.update(100, 1000 * MS);
+        assertTrue(estimator.hasEstimate());
+        assertEquals(-1, estimator.getRemainingNanos(200));
+    }
+
+    @Test
+    public void resetForgetsTheRate() {
+        RateEstimator estimator = new RateEstimator();
+        estimator.update(0, 0);
+        estimator.update(1000, 100 * MS);
+        estimator.reset();
+        assertFalse(estimator.hasEstimate());
+        assertEquals(0, estimator.getRate(), 0);
+    }
+}
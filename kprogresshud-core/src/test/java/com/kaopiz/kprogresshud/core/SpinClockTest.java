@@ -0,0 +1,96 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.kaopiz.kprogresshud.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SpinClockTest {
+
+    private static final long MS = 1000000L;
+    // Any non-zero start, frame times are only compared with each other
+    private static final long START = 1000 * MS;
+
+    @Test
+    public void firstFrameKeepsTheStep() {
+        SpinClock clock = new SpinClock(12, 12);
+        assertEquals(0, clock.advance(START));
+    }
+
+    @Test
+    public void advancesByElapsedTimeAndWrapsAround() {
+        SpinClock clock = new SpinClock(12, 12);
+        clock.advance(START);
+        assertEquals(6, clock.advance(START + 500 * MS));
+        assertEquals(6, clock.advance(START + 1500 * MS));
+        assertEquals(9, clock.advance(START + 1750 * MS));
+    }
+
+    @Test
+    public void sameStepWithinOneStepInterval() {
+        SpinClock clock = new SpinClock(12, 12);
+        clock.advance(START);
+        assertEquals(0, clock.advance(START + 16 * MS));
+        assertEquals(0, clock.advance(START + 33 * MS));
+        assertEquals(1, clock.advance(START + 84 * MS));
+    }
+
+    @Test
+    public void speedScalesThePace() {
+        SpinClock clock = new SpinClock(12, 12);
+        clock.setSpeed(2);
+        clock.advance(START);
+        assertEquals(6, clock.advance(START + 250 * MS));
+    }
+
+    @Test
+    public void stepAtDoesNotAdvance() {
+        SpinClock clock = new SpinClock(12, 12);
+        clock.advance(START);
+        assertEquals(6, clock.stepAt(START + 500 * MS));
+        assertEquals(0, clock.advance(START + 16 * MS));
+    }
+
+    @Test
+    public void restartDoesNotCountThePause() {
+        SpinClock clock = new SpinClock(12, 12);
+        clock.advance(START);
+        clock.advance(START + 250 * MS);
+        clock.restart();
+        assertEquals(3, clock.advance(START + 10000 * MS));
+        assertEquals(4, clock.advance(START + 10084 * MS));
+    }
+
+    @Test
+    public void nanosUntilStep() {
+        SpinClock clock = new SpinClock(12, 12);
+        clock.advance(START);
+        assertEquals(1000 * MS / 12, clock.nanosUntilStep(1), 1);
+        assertEquals(1000 * MS / 6, clock.nanosUntilStep(2), 1);
+        // The current step is due again after a full turn
+        assertEquals(1000 * MS, clock.nanosUntilStep(0), 1);
+        assertEquals(1000 * MS + 1000 * MS / 12, clock.nanosUntilStep(13), 1);
+    }
+
+    @Test
+    public void stoppedSpinnerHasNoNextStep() {
+        SpinClock clock = new SpinClock(12, 12);
+        clock.setSpeed(0);
+        clock.advance(START);
+        assertEquals(Long.MAX_VALUE, clock.nanosUntilStep(1));
+    }
+}
@@ -17,6 +17,7 @@
 package com.kaopiz.kprogresshud;
 
 import android.content.Context;
+import android.content.res.Configuration;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
@@ -24,13 +25,22 @@ import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.view.View;
 
-class AnnularView extends View implements Determinate {
+import com.kaopiz.kprogresshud.core.ProgressModel;
+
+class AnnularView extends View implements LongDeterminate {
+
+    // Arc resolution, in steps per pixel of circumference
+    private static final int STEPS_PER_PIXEL = 4;
 
     private Paint mWhitePaint;
     private Paint mGreyPaint;
     private RectF mBound;
-    private int mMax = 100;
-    private int mProgress = 0;
+    private HudDimens mDimens;
+    private long mMax = 100;
+    private long mProgress = 0;
+    // Rendered sweep, quantized so that changes too small to see do not cause a redraw
+    private int mSweepSteps = 360 * STEPS_PER_PIXEL;
+    private int mSweepStep = 0;
 
     public AnnularView(Context context) {
         super(context);
@@ -50,47 +60,97 @@ class AnnularView extends View implements Determinate {
     private void init(Context context){
         mWhitePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mWhitePaint.setStyle(Paint.Style.STROKE);
-        mWhitePaint.setStrokeWidth(Helper.dpToPixel(3, getContext()));
         mWhitePaint.setColor(Color.WHITE);
 
         mGreyPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mGreyPaint.setStyle(Paint.Style.STROKE);
-        mGreyPaint.setStrokeWidth(Helper.dpToPixel(3, getContext()));
         mGreyPaint.setColor(context.getResources().getColor(R.color.kprogresshud_grey_color));
 
         mBound = new RectF();
+        mDimens = HudDimens.get(context);
+        applyDimens();
+    }
+
+    private void applyDimens() {
+        mWhitePaint.setStrokeWidth(mDimens.annularStroke);
+        mGreyPaint.setStrokeWidth(mDimens.annularStroke);
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        HudDimens dimens = HudDimens.get(getContext());
+        if (dimens != mDimens) {
+            mDimens = dimens;
+            applyDimens();
+            requestLayout();
+        }
     }
 
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
-        int padding = Helper.dpToPixel(4, getContext());
+        int padding = mDimens.arcPadding;
         mBound.set(padding, padding, w - padding, h - padding);
+        mSweepSteps = Math.max(360, (int) Math.ceil(Math.PI * mBound.width() * STEPS_PER_PIXEL));
+        updateSweep();
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        float mAngle = mProgress * 360f / mMax;
-        canvas.drawArc(mBound, 270, mAngle, false, mWhitePaint);
-        canvas.drawArc(mBound, 270 + mAngle, 360 - mAngle, false, mGreyPaint);
+        boolean traced = HudTrace.begin("KProgressHUD.AnnularView.draw");
+        try {
+            super.onDraw(canvas);
+            float mAngle = mSweepStep * 360f / mSweepSteps;
+            canvas.drawArc(mBound, 270, mAngle, false, mWhitePaint);
+            canvas.drawArc(mBound, 270 + mAngle, 360 - mAngle, false, mGreyPaint);
+        } finally {
+            HudTrace.end(traced);
+        }
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-        int dimension = Helper.dpToPixel(40, getContext());
+        int dimension = mDimens.indicatorSize;
         setMeasuredDimension(dimension, dimension);
     }
 
     @Override
     public void setMax(int max) {
+        setMax((long) max);
+    }
+
+    @Override
+    public void setMax(long max) {
         this.mMax = max;
+        if (updateSweep()) {
+            invalidate();
+        }
     }
 
     @Override
     public void setProgress(int progress) {
+        setProgress((long) progress);
+    }
+
+    @Override
+    public void setProgress(long progress) {
         mProgress = progress;
-        invalidate();
+        if (updateSweep()) {
+            invalidate();
+        }
+    }
+
+    /**
+     * @return true if the rendered sweep changed
+     */
+    private boolean updateSweep() {
+        int step = ProgressModel.quantize(mProgress, mMax, mSweepSteps);
+        if (step == mSweepStep) {
+            return false;
+        }
+        mSweepStep = step;
+        return true;
     }
 }
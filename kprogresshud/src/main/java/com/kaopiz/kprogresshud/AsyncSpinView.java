@@ -0,0 +1,99 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.graphics.drawable.AnimatedVectorDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.util.AttributeSet;
+
+/**
+ * Spinner whose rotation is animated by an AnimatedVectorDrawable. From API 25 such animations
+ * run on the RenderThread, so the spinner keeps turning while the main thread is busy.
+ * Falls back to the regular {@link SpinView} animation on older devices, without hardware
+ * acceleration, or when a custom animation speed is set.
+ */
+class AsyncSpinView extends SpinView {
+
+    private boolean mRenderThreadAnimation;
+
+    public AsyncSpinView(Context context) {
+        super(context);
+    }
+
+    public AsyncSpinView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    @Override
+    public void setAnimationSpeed(float scale) {
+        // Switching between the drawable and the frame clock animation needs a restart
+        boolean restart = getWindowToken() != null && scale != getAnimationSpeed();
+        if (restart) {
+            stopSpinning();
+        }
+        super.setAnimationSpeed(scale);
+        if (restart) {
+            startSpinning();
+        }
+    }
+
+    @Override
+    void startSpinning() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N_MR1 && isHardwareAccelerated()
+                && getAnimationSpeed() == 1) {
+            startRenderThreadAnimation();
+        } else {
+            if (mRenderThreadAnimation) {
+                mRenderThreadAnimation = false;
+                setImageResource(R.drawable.kprogresshud_spinner);
+            }
+            super.startSpinning();
+        }
+    }
+
+    @Override
+    void stopSpinning() {
+        if (mRenderThreadAnimation) {
+            stopRenderThreadAnimation();
+        } else {
+            super.stopSpinning();
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.N_MR1)
+    private void startRenderThreadAnimation() {
+        if (!mRenderThreadAnimation) {
+            mRenderThreadAnimation = true;
+            setImageResource(R.drawable.kprogresshud_spinner_animated);
+        }
+        Drawable drawable = getDrawable();
+        if (drawable instanceof AnimatedVectorDrawable) {
+            ((AnimatedVectorDrawable) drawable).start();
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.N_MR1)
+    private void stopRenderThreadAnimation() {
+        Drawable drawable = getDrawable();
+        if (drawable instanceof AnimatedVectorDrawable) {
+            ((AnimatedVectorDrawable) drawable).stop();
+        }
+    }
+}
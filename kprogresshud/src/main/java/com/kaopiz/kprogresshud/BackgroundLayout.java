@@ -18,6 +18,7 @@ package com.kaopiz.kprogresshud;
 
 import android.annotation.TargetApi;
 import android.content.Context;
+import android.graphics.drawable.Drawable;
 import android.graphics.drawable.GradientDrawable;
 import android.os.Build;
 import android.util.AttributeSet;
@@ -27,6 +28,7 @@ class BackgroundLayout extends LinearLayout {
 
     private float mCornerRadius;
     private int mBackgroundColor;
+    private GradientDrawable mBackgroundDrawable;
 
     public BackgroundLayout(Context context) {
         super(context);
@@ -46,15 +48,15 @@ class BackgroundLayout extends LinearLayout {
 
     @SuppressWarnings("deprecation")
     private void init() {
-        int color = getContext().getResources().getColor(R.color.kprogresshud_default_color);
-        initBackground(color, mCornerRadius);
+        mBackgroundColor = getContext().getResources().getColor(R.color.kprogresshud_default_color);
+        mBackgroundDrawable = new GradientDrawable();
+        mBackgroundDrawable.setShape(GradientDrawable.RECTANGLE);
+        mBackgroundDrawable.setColor(mBackgroundColor);
+        mBackgroundDrawable.setCornerRadius(mCornerRadius);
+        setBackgroundCompat(mBackgroundDrawable);
     }
 
-    private void initBackground(int color, float cornerRadius) {
-        GradientDrawable drawable = new GradientDrawable();
-        drawable.setShape(GradientDrawable.RECTANGLE);
-        drawable.setColor(color);
-        drawable.setCornerRadius(cornerRadius);
+    private void setBackgroundCompat(Drawable drawable) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
             setBackground(drawable);
         } else {
@@ -64,12 +66,17 @@ class BackgroundLayout extends LinearLayout {
     }
 
     public void setCornerRadius(float radius) {
-        mCornerRadius = Helper.dpToPixel(radius, getContext());
-        initBackground(mBackgroundColor, mCornerRadius);
+        float cornerRadius = Helper.dpToPixel(radius, getContext());
+        if (cornerRadius != mCornerRadius) {
+            mCornerRadius = cornerRadius;
+            mBackgroundDrawable.setCornerRadius(mCornerRadius);
+        }
     }
 
     public void setBaseColor(int color) {
-        mBackgroundColor = color;
-        initBackground(mBackgroundColor, mCornerRadius);
+        if (color != mBackgroundColor) {
+            mBackgroundColor = color;
+            mBackgroundDrawable.setColor(mBackgroundColor);
+        }
     }
 }
@@ -17,6 +17,7 @@
 package com.kaopiz.kprogresshud;
 
 import android.content.Context;
+import android.content.res.Configuration;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
@@ -24,15 +25,20 @@ import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.view.View;
 
-class BarView extends View implements Determinate {
+import com.kaopiz.kprogresshud.core.ProgressModel;
+
+class BarView extends View implements LongDeterminate {
 
     private Paint mOuterPaint;
     private Paint mInnerPaint;
     private RectF mBound;
     private RectF mInBound;
-    private int mMax = 100;
-    private int mProgress = 0;
+    private long mMax = 100;
+    private long mProgress = 0;
     private float mBoundGap;
+    private HudDimens mDimens;
+    // Right edge of the progress bar in whole pixels, redraws only happen when it moves
+    private int mProgressRight = -1;
 
     public BarView(Context context) {
         super(context);
@@ -52,52 +58,97 @@ class BarView extends View implements Determinate {
     private void init() {
         mOuterPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mOuterPaint.setStyle(Paint.Style.STROKE);
-        mOuterPaint.setStrokeWidth(Helper.dpToPixel(2, getContext()));
         mOuterPaint.setColor(Color.WHITE);
 
         mInnerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         mInnerPaint.setStyle(Paint.Style.FILL);
         mInnerPaint.setColor(Color.WHITE);
 
-        mBoundGap = Helper.dpToPixel(5, getContext());
-        mInBound = new RectF(mBoundGap, mBoundGap,
-                (getWidth() - mBoundGap) * mProgress / mMax, getHeight() - mBoundGap);
-
+        mInBound = new RectF();
         mBound = new RectF();
+        mDimens = HudDimens.get(getContext());
+        applyDimens();
+    }
+
+    private void applyDimens() {
+        mOuterPaint.setStrokeWidth(mDimens.barStroke);
+        mBoundGap = mDimens.barGap;
+        mProgressRight = -1;
+        updateProgressRight();
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        HudDimens dimens = HudDimens.get(getContext());
+        if (dimens != mDimens) {
+            mDimens = dimens;
+            applyDimens();
+            requestLayout();
+        }
     }
 
     @Override
     protected void onSizeChanged(int w, int h, int oldw, int oldh) {
         super.onSizeChanged(w, h, oldw, oldh);
-        int padding = Helper.dpToPixel(2, getContext());
+        int padding = mDimens.barPadding;
         mBound.set(padding, padding, w - padding, h - padding);
+        mProgressRight = -1;
+        updateProgressRight();
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        canvas.drawRoundRect(mBound, mBound.height()/2, mBound.height()/2, mOuterPaint);
-        canvas.drawRoundRect(mInBound, mInBound.height()/2, mInBound.height()/2, mInnerPaint);
+        boolean traced = HudTrace.begin("KProgressHUD.BarView.draw");
+        try {
+            super.onDraw(canvas);
+            canvas.drawRoundRect(mBound, mBound.height()/2, mBound.height()/2, mOuterPaint);
+            canvas.drawRoundRect(mInBound, mInBound.height()/2, mInBound.height()/2, mInnerPaint);
+        } finally {
+            HudTrace.end(traced);
+        }
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
-        int widthDimension = Helper.dpToPixel(100, getContext());
-        int heightDimension = Helper.dpToPixel(20, getContext());
-        setMeasuredDimension(widthDimension, heightDimension);
+        setMeasuredDimension(mDimens.barWidth, mDimens.barHeight);
     }
 
     @Override
     public void setMax(int max) {
+        setMax((long) max);
+    }
+
+    @Override
+    public void setMax(long max) {
         this.mMax = max;
+        updateProgressRight();
     }
 
     @Override
     public void setProgress(int progress) {
+        setProgress((long) progress);
+    }
+
+    @Override
+    public void setProgress(long progress) {
         this.mProgress = progress;
-        mInBound.set(mBoundGap, mBoundGap,
-                (getWidth() - mBoundGap) * mProgress / mMax, getHeight() - mBoundGap);
-        invalidate();
+        updateProgressRight();
+    }
+
+    private void updateProgressRight() {
+        int right = ProgressModel.quantize(mProgress, mMax, (int) (getWidth() - mBoundGap));
+        if (right == mProgressRight) {
+            return;
+        }
+        int oldRight = Math.max(mProgressRight, 0);
+        mProgressRight = right;
+        mInBound.set(mBoundGap, mBoundGap, right, getHeight() - mBoundGap);
+        // Only the span between the old and new edge, plus the rounded cap, needs redrawing
+        int cap = (int) Math.ceil(mInBound.height() / 2) + 1;
+        //noinspection deprecation
+        invalidate(Math.max(0, Math.min(oldRight, right) - cap), 0,
+                Math.max(oldRight, right) + cap, getHeight());
     }
 }
@@ -0,0 +1,244 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.Arrays;
+
+/**
+ * Shared animation clock for the HUD views. A single vsync aligned Choreographer callback
+ * (or a Handler loop before Jelly Bean) drives every registered callback. Callbacks run either
+ * on every frame, or once on the first frame after a delay: the clock then only wakes up for
+ * the earliest due callback, and nothing is scheduled while no callback is registered.
+ * Must only be used from the main thread.
+ */
+class FrameClock {
+
+    interface Callback {
+        /**
+         * @param frameTimeNanos Frame time in the {@link System#nanoTime()} time base
+         */
+        void doFrame(long frameTimeNanos);
+    }
+
+    private static final long FALLBACK_FRAME_MS = 1000 / 60;
+    // Due time of the callbacks run on every frame
+    private static final long EVERY_FRAME = Long.MIN_VALUE;
+    // Delayed callbacks due this shortly after a frame run with it, instead of a frame late
+    private static final long DUE_TOLERANCE_NANOS = 1000000;
+
+    private static FrameClock sInstance;
+
+    // Registered callbacks and their due times, in registration order
+    private Callback[] mCallbacks = new Callback[4];
+    private long[] mDueNanos = new long[4];
+    private int mCount;
+    // Callbacks run by the current frame, each slot is cleared right before its callback runs
+    private Callback[] mDispatch = new Callback[4];
+    private int mDispatchCount;
+    private boolean mDispatching;
+    private boolean mScheduled;
+    // Due time the scheduled wake-up was requested for
+    private long mScheduledNanos;
+    private final Handler mHandler;
+    private final Runnable mFallbackFrame;
+    private Object mChoreographerCallback;
+
+    static FrameClock getInstance() {
+        if (sInstance == null) {
+            sInstance = new FrameClock();
+        }
+        return sInstance;
+    }
+
+    private FrameClock() {
+        mHandler = new Handler(Looper.getMainLooper());
+        mFallbackFrame = new Runnable() {
+            @Override
+            public void run() {
+                dispatchFrame(System.nanoTime());
+            }
+        };
+    }
+
+    /**
+     * Run the callback on every frame until it is removed.
+     */
+    void addCallback(Callback callback) {
+        put(callback, EVERY_FRAME);
+    }
+
+    /**
+     * Run the callback once, on the first frame at least delayNanos from now. Replaces any
+     * earlier registration of the same callback.
+     */
+    void postCallback(Callback callback, long delayNanos) {
+        put(callback, System.nanoTime() + Math.max(0, delayNanos));
+    }
+
+    void removeCallback(Callback callback) {
+        int index = indexOf(callback);
+        if (index >= 0) {
+            removeAt(index);
+        }
+        // Also skip it if the current frame has yet to run it
+        for (int i = 0; i < mDispatchCount; i++) {
+            if (mDispatch[i] == callback) {
+                mDispatch[i] = null;
+            }
+        }
+    }
+
+    private void put(Callback callback, long dueNanos) {
+        int index = indexOf(callback);
+        if (index < 0) {
+            if (mCount == mCallbacks.length) {
+                Callback[] callbacks = new Callback[mCount * 2];
+                System.arraycopy(mCallbacks, 0, callbacks, 0, mCount);
+                mCallbacks = callbacks;
+                long[] due = new long[mCount * 2];
+                System.arraycopy(mDueNanos, 0, due, 0, mCount);
+                mDueNanos = due;
+            }
+            index = mCount++;
+            mCallbacks[index] = callback;
+        }
+        mDueNanos[index] = dueNanos;
+        // A frame being dispatched schedules the next one once every callback ran
+        if (!mDispatching) {
+            scheduleFrame(dueNanos);
+        }
+    }
+
+    private int indexOf(Callback callback) {
+        for (int i = 0; i < mCount; i++) {
+            if (mCallbacks[i] == callback) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int index) {
+        mCount--;
+        System.arraycopy(mCallbacks, index + 1, mCallbacks, index, mCount - index);
+        System.arraycopy(mDueNanos, index + 1, mDueNanos, index, mCount - index);
+        // Do not keep a removed callback, and the HUD and Activity behind it, reachable
+        mCallbacks[mCount] = null;
+    }
+
+    private void dispatchFrame(long frameTimeNanos) {
+        mScheduled = false;
+        if (mDispatch.length < mCount) {
+            mDispatch = new Callback[mCount * 2];
+        }
+        long deadline = frameTimeNanos + DUE_TOLERANCE_NANOS;
+        int count = 0;
+        int i = 0;
+        while (i < mCount) {
+            long due = mDueNanos[i];
+            if (due == EVERY_FRAME) {
+                mDispatch[count++] = mCallbacks[i++];
+            } else if (due <= deadline) {
+                // Delayed callbacks run once, and may post themselves again while running
+                mDispatch[count++] = mCallbacks[i];
+                removeAt(i);
+            } else {
+                i++;
+            }
+        }
+        mDispatchCount = count;
+        mDispatching = true;
+        try {
+            for (int j = 0; j < count; j++) {
+                Callback callback = mDispatch[j];
+                if (callback != null) {
+                    mDispatch[j] = null;
+                    callback.doFrame(frameTimeNanos);
+                }
+            }
+        } finally {
+            mDispatching = false;
+            // Slots left by a callback that threw
+            Arrays.fill(mDispatch, 0, count, null);
+            mDispatchCount = 0;
+            scheduleNext();
+        }
+    }
+
+    private void scheduleNext() {
+        if (mCount == 0) return;
+        long earliest = Long.MAX_VALUE;
+        for (int i = 0; i < mCount; i++) {
+            earliest = Math.min(earliest, mDueNanos[i]);
+        }
+        scheduleFrame(earliest);
+    }
+
+    private void scheduleFrame(long dueNanos) {
+        if (mScheduled) {
+            if (mScheduledNanos <= dueNanos) return;
+            // Due before the pending wake-up, bring it forward
+            cancelFrame();
+        }
+        mScheduled = true;
+        mScheduledNanos = dueNanos;
+        long delayMs = dueNanos == EVERY_FRAME
+                ? 0 : Math.max(0, (dueNanos - System.nanoTime()) / 1000000);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            postFrameCallback(delayMs);
+        } else {
+            mHandler.postDelayed(mFallbackFrame, Math.max(FALLBACK_FRAME_MS, delayMs));
+        }
+    }
+
+    private void cancelFrame() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            removeFrameCallback();
+        } else {
+            mHandler.removeCallbacks(mFallbackFrame);
+        }
+        mScheduled = false;
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void postFrameCallback(long delayMs) {
+        if (mChoreographerCallback == null) {
+            mChoreographerCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    dispatchFrame(frameTimeNanos);
+                }
+            };
+        }
+        Choreographer.getInstance().postFrameCallbackDelayed(
+                (Choreographer.FrameCallback) mChoreographerCallback, delayMs);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void removeFrameCallback() {
+        if (mChoreographerCallback != null) {
+            Choreographer.getInstance().removeFrameCallback(
+                    (Choreographer.FrameCallback) mChoreographerCallback);
+        }
+    }
+}
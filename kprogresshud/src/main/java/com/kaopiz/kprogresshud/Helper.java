@@ -16,16 +16,61 @@
 
 package com.kaopiz.kprogresshud;
 
+import android.app.Activity;
 import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Build;
+import android.os.PowerManager;
+import android.view.Display;
+import android.view.View;
+import android.view.WindowManager;
 
 class Helper {
 
-    private static float scale;
-
+    /**
+     * Convert a size given by the caller, such as the HUD size or corner radius, for the display
+     * the context is bound to. Sizes of the built-in indicators come from {@link HudDimens}.
+     */
     public static int dpToPixel(float dp, Context context) {
-        if (scale == 0) {
-            scale = context.getResources().getDisplayMetrics().density;
+        return (int) (dp * context.getResources().getDisplayMetrics().density);
+    }
+
+    /**
+     * Find the Activity behind a context, unwrapping any ContextWrapper on the way.
+     * @return The Activity, or null if the context is not bound to one
+     */
+    public static Activity getActivity(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return (Activity) context;
+            }
+            context = ((ContextWrapper) context).getBaseContext();
         }
-        return (int) (dp * scale);
+        return null;
+    }
+
+    /**
+     * @return Refresh rate in Hz of the display the view is shown on, or of the default display
+     */
+    public static float getRefreshRate(View view) {
+        Display display = null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            display = view.getDisplay();
+        }
+        if (display == null) {
+            WindowManager windowManager = (WindowManager) view.getContext()
+                    .getSystemService(Context.WINDOW_SERVICE);
+            display = windowManager != null ? windowManager.getDefaultDisplay() : null;
+        }
+        return display != null ? display.getRefreshRate() : 60;
+    }
+
+    /**
+     * @return true if battery saver is on. Always false before Lollipop.
+     */
+    public static boolean isPowerSaveMode(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) return false;
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        return powerManager != null && powerManager.isPowerSaveMode();
     }
 }
@@ -0,0 +1,150 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.kaopiz.kprogresshud.core.GraceTimer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shares one HUD between any number of overlapping operations. Each operation acquires a
+ * {@link Token} and releases it when done: the first acquire shows the HUD, the last release
+ * dismisses it. Once visible, the HUD stays up for at least the minimum show time, so bursts of
+ * short operations reuse the same window instead of opening and closing it repeatedly.
+ * A HUD dismissed by other means, e.g. cancelled by the user or on reaching max progress, is
+ * shown again by the next acquire. Tokens may be acquired and released from any thread.
+ */
+public class HudCoordinator {
+
+    private final KProgressHUD mHud;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mUpdate = new Runnable() {
+        @Override
+        public void run() {
+            update();
+        }
+    };
+    private int mMinShowTimeMs;
+    private int mCount;
+
+    // Main thread only
+    private boolean mActive;
+    private long mShowTime;
+
+    public HudCoordinator(KProgressHUD hud) {
+        mHud = hud;
+        hud.setDismissCallback(new Runnable() {
+            @Override
+            public void run() {
+                // Dismissed by us, or behind our back: either way nothing is shown any more
+                mActive = false;
+            }
+        });
+    }
+
+    /**
+     * Minimum time (in milliseconds) the HUD stays visible once it appeared. Default is 0.
+     * @return Current coordinator
+     */
+    public HudCoordinator setMinShowTime(int minShowTimeMs) {
+        mMinShowTimeMs = minShowTimeMs;
+        return this;
+    }
+
+    /**
+     * Register a running operation. Shows the HUD if it is the only one.
+     * @return The token to release when the operation finishes
+     */
+    public Token acquire() {
+        synchronized (this) {
+            mCount++;
+        }
+        scheduleUpdate();
+        return new Token();
+    }
+
+    /**
+     * @return Number of tokens acquired and not released yet
+     */
+    public synchronized int getActiveCount() {
+        return mCount;
+    }
+
+    private void release() {
+        synchronized (this) {
+            mCount--;
+        }
+        scheduleUpdate();
+    }
+
+    private void scheduleUpdate() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            update();
+        } else {
+            mMainHandler.post(mUpdate);
+        }
+    }
+
+    private void update() {
+        int count;
+        synchronized (this) {
+            count = mCount;
+        }
+        mMainHandler.removeCallbacks(mUpdate);
+        if (count > 0) {
+            if (!mActive) {
+                mActive = true;
+                mShowTime = SystemClock.uptimeMillis();
+                mHud.show();
+            }
+        } else if (mActive) {
+            long remaining = 0;
+            if (mHud.isShowing()) {
+                // The HUD only appeared after its grace time, count from there
+                remaining = GraceTimer.remainingShowTime(mShowTime, mHud.getGraceTime(),
+                        mMinShowTimeMs, SystemClock.uptimeMillis());
+            }
+            if (remaining > 0) {
+                mMainHandler.postDelayed(mUpdate, remaining);
+            } else {
+                mActive = false;
+                mHud.dismiss();
+            }
+        }
+    }
+
+    /**
+     * Handle for one running operation. Releasing it more than once has no effect.
+     */
+    public final class Token {
+
+        private final AtomicBoolean mReleased = new AtomicBoolean();
+
+        private Token() {
+        }
+
+        public void release() {
+            if (mReleased.compareAndSet(false, true)) {
+                HudCoordinator.this.release();
+            }
+        }
+    }
+}
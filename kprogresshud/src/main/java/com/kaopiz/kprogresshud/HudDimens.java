@@ -0,0 +1,76 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.content.Context;
+import android.util.SparseArray;
+
+/**
+ * Every pixel size used by the built-in indicators, converted once per display density.
+ * Views look their instance up when created and again on configuration changes, so that
+ * measure and draw never convert units.
+ */
+final class HudDimens {
+
+    private static final SparseArray<HudDimens> sCache = new SparseArray<>();
+
+    final float density;
+    // Pie and annular indicators
+    final int indicatorSize;
+    final int arcPadding;
+    final int pieFillStroke;
+    final int pieOutlineStroke;
+    final int annularStroke;
+    // Bar indicator
+    final int barWidth;
+    final int barHeight;
+    final int barPadding;
+    final int barStroke;
+    final int barGap;
+
+    private HudDimens(float density) {
+        this.density = density;
+        indicatorSize = toPixel(40);
+        arcPadding = toPixel(4);
+        pieFillStroke = toPixel(0.1f);
+        pieOutlineStroke = toPixel(2);
+        annularStroke = toPixel(3);
+        barWidth = toPixel(100);
+        barHeight = toPixel(20);
+        barPadding = toPixel(2);
+        barStroke = toPixel(2);
+        barGap = toPixel(5);
+    }
+
+    private int toPixel(float dp) {
+        return (int) (dp * density);
+    }
+
+    /**
+     * @return The dimensions for the display the context is bound to. Must be called on the main thread.
+     */
+    static HudDimens get(Context context) {
+        float density = context.getResources().getDisplayMetrics().density;
+        int key = Float.floatToIntBits(density);
+        HudDimens dimens = sCache.get(key);
+        if (dimens == null) {
+            dimens = new HudDimens(density);
+            sCache.put(key, dimens);
+        }
+        return dimens;
+    }
+}
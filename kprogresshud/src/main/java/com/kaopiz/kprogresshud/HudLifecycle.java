@@ -0,0 +1,117 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.os.Bundle;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Observes Activity destruction for every HUD bound to an Activity. When the Activity is
+ * destroyed, and before its windows are torn down, its HUDs are dismissed and release their
+ * views and context, and the recycled HUDs and managers kept for it are dropped. A HUD still
+ * referenced afterwards, e.g. by a presenter surviving a rotation, then no longer keeps the
+ * Activity alive. HUDs are only referenced weakly here. Must only be used from the main thread.
+ */
+final class HudLifecycle implements Application.ActivityLifecycleCallbacks {
+
+    private static HudLifecycle sInstance;
+
+    private final Set<KProgressHUD> mHuds =
+            Collections.newSetFromMap(new WeakHashMap<KProgressHUD, Boolean>());
+    // Application the callbacks are registered with
+    private Application mApplication;
+
+    static HudLifecycle getInstance() {
+        if (sInstance == null) {
+            sInstance = new HudLifecycle();
+        }
+        return sInstance;
+    }
+
+    /**
+     * @return true if Activity destruction is observed, false if the Application cannot be
+     * reached from the context
+     */
+    boolean register(Context context) {
+        Context appContext = context.getApplicationContext();
+        if (!(appContext instanceof Application)) return false;
+        if (appContext != mApplication) {
+            // Only ever changes under test runners creating an Application per test
+            if (mApplication != null) {
+                mApplication.unregisterActivityLifecycleCallbacks(this);
+            }
+            mApplication = (Application) appContext;
+            mApplication.registerActivityLifecycleCallbacks(this);
+        }
+        return true;
+    }
+
+    /**
+     * Release the HUD when the Activity of its context is destroyed. Has no effect for HUDs
+     * bound to a non-Activity context.
+     */
+    void track(KProgressHUD hud, Context context) {
+        if (Helper.getActivity(context) != null && register(context)) {
+            mHuds.add(hud);
+        }
+    }
+
+    @Override
+    public void onActivityDestroyed(Activity activity) {
+        Iterator<KProgressHUD> iterator = mHuds.iterator();
+        while (iterator.hasNext()) {
+            KProgressHUD hud = iterator.next();
+            if (hud.isBoundTo(activity)) {
+                iterator.remove();
+                hud.release();
+            }
+        }
+        HudRecycler.getInstance().onActivityDestroyed(activity);
+        HudManager.onActivityDestroyed(activity);
+    }
+
+    @Override
+    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+    }
+
+    @Override
+    public void onActivityStarted(Activity activity) {
+    }
+
+    @Override
+    public void onActivityResumed(Activity activity) {
+    }
+
+    @Override
+    public void onActivityPaused(Activity activity) {
+    }
+
+    @Override
+    public void onActivityStopped(Activity activity) {
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.lang.ref.WeakReference;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.WeakHashMap;
+
+/**
+ * Funnels the HUD requests of unrelated components into a single HUD per Activity. Requests are
+ * queued by priority and only the highest one is displayed: when it changes, the label, style
+ * and progress of the window already on screen are swapped in place. A request that finishes
+ * while queued behind another one is dropped without any view work, and the window is only
+ * dismissed once the queue is empty. Requests may be shown, updated and finished from any thread.
+ * An idle manager hands its HUD back for recycling and keeps no strong reference to its context.
+ */
+public class HudManager {
+
+    private static final Comparator<Request> ORDER = new Comparator<Request>() {
+        @Override
+        public int compare(Request a, Request b) {
+            if (a.mPriority != b.mPriority) {
+                return a.mPriority > b.mPriority ? -1 : 1;
+            }
+            // Same priority: first come, first shown
+            return a.mSequence < b.mSequence ? -1 : (a.mSequence == b.mSequence ? 0 : 1);
+        }
+    };
+
+    // Weakly keyed, only a manager with pending requests keeps its context alive through its HUD
+    private static final WeakHashMap<Context, HudManager> sManagers = new WeakHashMap<>();
+
+    private final WeakReference<Context> mContext;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mUpdate = new Runnable() {
+        @Override
+        public void run() {
+            update();
+        }
+    };
+    private int mGraceTimeMs;
+
+    // Guarded by this
+    private final PriorityQueue<Request> mQueue = new PriorityQueue<>(4, ORDER);
+    private long mNextSequence;
+    private Request mShown;
+    private KProgressHUD mHud;
+
+    // Main thread only
+    private int mShownVersion;
+    private KProgressHUD.Style mShownStyle;
+
+    private HudManager(Context context) {
+        mContext = new WeakReference<>(context);
+    }
+
+    /**
+     * Must be called on the main thread. Managers are dropped when their Activity is destroyed,
+     * or once their context is garbage collected if the Application cannot be reached from it.
+     * @param context Activity context the HUD is displayed in
+     * @return The manager shared by every caller using the same context
+     */
+    public static HudManager get(Context context) {
+        HudManager manager = sManagers.get(context);
+        if (manager == null) {
+            manager = new HudManager(context);
+            // Cached even when Activity destruction cannot be observed: the manager only holds
+            // its context weakly, so the entry goes away with the context
+            if (Helper.getActivity(context) != null) {
+                HudLifecycle.getInstance().register(context);
+            }
+            sManagers.put(context, manager);
+        }
+        return manager;
+    }
+
+    static void onActivityDestroyed(Activity activity) {
+        Iterator<Map.Entry<Context, HudManager>> iterator = sManagers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Context, HudManager> entry = iterator.next();
+            if (Helper.getActivity(entry.getKey()) == activity) {
+                iterator.remove();
+                entry.getValue().clear();
+            }
+        }
+    }
+
+    /**
+     * Grace time (in milliseconds) before the window appears for the first request, see
+     * {@link KProgressHUD#setGraceTime(int)}. Default is 0. Must be called on the main thread.
+     * @return Current manager
+     */
+    public HudManager setGraceTime(int graceTimeMs) {
+        mGraceTimeMs = graceTimeMs;
+        KProgressHUD hud;
+        synchronized (this) {
+            hud = mHud;
+        }
+        if (hud != null) {
+            hud.setGraceTime(graceTimeMs);
+        }
+        return this;
+    }
+
+    /**
+     * Prepare a request. Nothing is displayed until {@link Request#show()} is called.
+     * @param priority Requests with a higher priority are displayed first
+     * @return The request, spinning without label by default
+     */
+    public Request newRequest(int priority) {
+        return new Request(priority);
+    }
+
+    /**
+     * @return Number of requests shown and not finished yet
+     */
+    public synchronized int getPendingCount() {
+        return mQueue.size();
+    }
+
+    private void scheduleUpdate() {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            update();
+        } else {
+            mMainHandler.post(mUpdate);
+        }
+    }
+
+    private void update() {
+        mMainHandler.removeCallbacks(mUpdate);
+        Request top;
+        KProgressHUD hud;
+        KProgressHUD.Style style;
+        String label;
+        String detailsLabel;
+        long max;
+        int version;
+        if (recycleIfIdle()) return;
+        synchronized (this) {
+            top = mQueue.peek();
+            // Emptied meanwhile, the finish scheduled another update
+            if (top == null) return;
+            if (top == mShown && top.mVersion == mShownVersion) return;
+            if (mHud == null) {
+                Context context = mContext.get();
+                if (context == null) return;
+                mHud = KProgressHUD.create(context)
+                        .setAutoDismiss(false)
+                        .setGraceTime(mGraceTimeMs);
+            }
+            hud = mHud;
+            style = top.mStyle;
+            label = top.mLabel;
+            detailsLabel = top.mDetailsLabel;
+            max = top.mMax;
+            version = top.mVersion;
+        }
+        if (style != mShownStyle) {
+            mShownStyle = style;
+            hud.setStyle(style);
+        }
+        hud.setLabel(label);
+        hud.setDetailsLabel(detailsLabel);
+        hud.setMaxProgress(max);
+        boolean appear;
+        synchronized (this) {
+            if (mQueue.peek() != top) {
+                // Changed while applying, a new update is already scheduled
+                return;
+            }
+            appear = mShown == null;
+            mShown = top;
+            mShownVersion = version;
+            // From now on the request forwards its progress by itself
+            hud.setProgress(top.mProgress);
+        }
+        if (appear) {
+            hud.show();
+        }
+    }
+
+    /**
+     * Hand the HUD back once no request is pending, so that an idle manager does not keep its
+     * context alive. The next request gets the same window back from the recycled HUDs.
+     * @return true if the queue is empty
+     */
+    private boolean recycleIfIdle() {
+        KProgressHUD hud;
+        synchronized (this) {
+            if (!mQueue.isEmpty()) return false;
+            hud = mHud;
+            mShown = null;
+            mHud = null;
+        }
+        if (hud != null) {
+            mShownStyle = null;
+            hud.recycle();
+        }
+        return true;
+    }
+
+    private void clear() {
+        KProgressHUD hud;
+        synchronized (this) {
+            for (Request request : mQueue) {
+                request.mFinished = true;
+            }
+            mQueue.clear();
+            mShown = null;
+            hud = mHud;
+            mHud = null;
+        }
+        mMainHandler.removeCallbacks(mUpdate);
+        mShownStyle = null;
+        if (hud != null) {
+            hud.dismiss();
+        }
+    }
+
+    /**
+     * One component's demand for the HUD. Setters may be called at any time and from any thread:
+     * the HUD only reflects them while this request is the one displayed.
+     */
+    public final class Request {
+
+        private final int mPriority;
+        private long mSequence;
+        // Guarded by the manager
+        private KProgressHUD.Style mStyle = KProgressHUD.Style.SPIN_INDETERMINATE;
+        private String mLabel;
+        private String mDetailsLabel;
+        private long mMax = 100;
+        private long mProgress;
+        private int mVersion;
+        private boolean mQueued;
+        private boolean mFinished;
+
+        private Request(int priority) {
+            mPriority = priority;
+        }
+
+        public Request setStyle(KProgressHUD.Style style) {
+            synchronized (HudManager.this) {
+                mStyle = style;
+                mVersion++;
+            }
+            onChanged();
+            return this;
+        }
+
+        public Request setLabel(String label) {
+            synchronized (HudManager.this) {
+                mLabel = label;
+                mVersion++;
+            }
+            onChanged();
+            return this;
+        }
+
+        public Request setDetailsLabel(String detailsLabel) {
+            synchronized (HudManager.this) {
+                mDetailsLabel = detailsLabel;
+                mVersion++;
+            }
+            onChanged();
+            return this;
+        }
+
+        public Request setMaxProgress(long maxProgress) {
+            synchronized (HudManager.this) {
+                mMax = maxProgress;
+                mVersion++;
+            }
+            onChanged();
+            return this;
+        }
+
+        /**
+         * Only the latest value is kept, and it is handed straight to the HUD while this
+         * request is displayed.
+         */
+        public void setProgress(long progress) {
+            synchronized (HudManager.this) {
+                mProgress = progress;
+                if (mShown == this && !mFinished) {
+                    mHud.setProgress(progress);
+                }
+            }
+        }
+
+        /**
+         * Queue the request. The HUD displays it as soon as no request with a higher priority
+         * is pending. Showing it again has no effect.
+         * @return Current request
+         */
+        public Request show() {
+            synchronized (HudManager.this) {
+                if (mQueued || mFinished) return this;
+                mQueued = true;
+                mSequence = mNextSequence++;
+                mQueue.add(this);
+            }
+            scheduleUpdate();
+            return this;
+        }
+
+        /**
+         * Remove the request, whether it is displayed or still queued. The HUD moves on to the
+         * next request, or is dismissed if there is none. Finishing more than once has no effect.
+         */
+        public void finish() {
+            synchronized (HudManager.this) {
+                if (mFinished) return;
+                mFinished = true;
+                if (!mQueued) return;
+                boolean top = mQueue.peek() == this;
+                mQueue.remove(this);
+                // Dropping a request queued behind another one leaves the HUD untouched
+                if (!top && mShown != this) return;
+            }
+            scheduleUpdate();
+        }
+
+        private void onChanged() {
+            boolean top;
+            synchronized (HudManager.this) {
+                top = !mFinished && mQueue.peek() == this;
+            }
+            if (top) {
+                scheduleUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Performance metrics of one show of a HUD, from the moment it starts to appear until it is
+ * dismissed. Delivered to a {@link HudMetricsListener}.
+ */
+public final class HudMetrics {
+
+    long mShowLatencyNanos = -1;
+    long mVisibleDurationNanos;
+    int mFramesDrawn;
+    int mSpinnerSkippedFrames;
+    // Progress may be reported from any thread
+    final AtomicLong mProgressReceived = new AtomicLong();
+    long mProgressApplied;
+
+    HudMetrics() {
+    }
+
+    void reset() {
+        mShowLatencyNanos = -1;
+        mVisibleDurationNanos = 0;
+        mFramesDrawn = 0;
+        mSpinnerSkippedFrames = 0;
+        mProgressReceived.set(0);
+        mProgressApplied = 0;
+    }
+
+    /**
+     * @return Time from the start of the show (the show() call, or the end of the grace time)
+     * to the first drawn frame, including creation of the window and views. -1 if no frame
+     * was drawn.
+     */
+    public long getShowLatencyNanos() {
+        return mShowLatencyNanos;
+    }
+
+    /**
+     * @return Time from the first drawn frame to the dismiss
+     */
+    public long getVisibleDurationNanos() {
+        return mVisibleDurationNanos;
+    }
+
+    /**
+     * @return Number of frames drawn by the window showing the HUD while it was visible
+     */
+    public int getFramesDrawn() {
+        return mFramesDrawn;
+    }
+
+    /**
+     * @return Spinner positions that were never drawn because frames came too late. Always 0
+     * for determinate styles, and for the async spinner while it runs on the RenderThread.
+     */
+    public int getSpinnerSkippedFrames() {
+        return mSpinnerSkippedFrames;
+    }
+
+    /**
+     * @return Number of setProgress() calls
+     */
+    public long getProgressReceived() {
+        return mProgressReceived.get();
+    }
+
+    /**
+     * @return Number of progress values applied to the indicator, after coalescing
+     */
+    public long getProgressApplied() {
+        return mProgressApplied;
+    }
+}
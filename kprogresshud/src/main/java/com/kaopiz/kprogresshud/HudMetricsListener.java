@@ -0,0 +1,40 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+/**
+ * Receives performance metrics of a HUD, see {@link KProgressHUD#setMetricsListener}.
+ * Called on the main thread. The metrics instance is reused by the next show, copy the
+ * values needed instead of keeping it.
+ */
+public interface HudMetricsListener {
+
+    /**
+     * The HUD drew its first frame, {@link HudMetrics#getShowLatencyNanos()} is known.
+     */
+    void onShown(KProgressHUD hud, HudMetrics metrics);
+
+    /**
+     * The HUD was dismissed or cancelled after it was shown, all metrics are final.
+     */
+    void onDismissed(KProgressHUD hud, HudMetrics metrics);
+
+    /**
+     * The HUD was dismissed during its grace time, so it was never shown.
+     */
+    void onGraceSuppressed(KProgressHUD hud);
+}
@@ -0,0 +1,118 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.app.Activity;
+import android.content.Context;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.WeakHashMap;
+
+/**
+ * Keeps recycled HUDs, together with their dialog, inflated layout and indicator views,
+ * per Context so they can be handed out again by {@link KProgressHUD#create(Context)}.
+ * Pools bound to an Activity are dropped by {@link HudLifecycle} when that Activity is destroyed.
+ * Contexts are weakly keyed and pooled HUDs, which hold their context, are only weakly
+ * referenced, so a pool never keeps its context alive: a pooled HUD nobody else holds is
+ * reused until the next garbage collection.
+ * Must only be used from the main thread.
+ */
+class HudRecycler {
+
+    static final int DEFAULT_MAX_POOL_SIZE = 3;
+
+    private static HudRecycler sInstance;
+
+    private final WeakHashMap<Context, ArrayDeque<WeakReference<KProgressHUD>>> mPools =
+            new WeakHashMap<>();
+    private int mMaxPoolSize = DEFAULT_MAX_POOL_SIZE;
+
+    static HudRecycler getInstance() {
+        if (sInstance == null) {
+            sInstance = new HudRecycler();
+        }
+        return sInstance;
+    }
+
+    void setMaxPoolSize(int maxPoolSize) {
+        mMaxPoolSize = Math.max(0, maxPoolSize);
+        for (ArrayDeque<WeakReference<KProgressHUD>> pool : mPools.values()) {
+            while (pool.size() > mMaxPoolSize) {
+                pool.pollLast();
+            }
+        }
+    }
+
+    /**
+     * @return A recycled HUD bound to the context, or null if the pool is empty
+     */
+    KProgressHUD obtain(Context context) {
+        ArrayDeque<WeakReference<KProgressHUD>> pool = mPools.get(context);
+        if (pool == null) return null;
+        WeakReference<KProgressHUD> reference;
+        while ((reference = pool.pollFirst()) != null) {
+            KProgressHUD hud = reference.get();
+            if (hud != null) {
+                return hud;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the HUD was kept, false if the pool for its context is full
+     */
+    boolean recycle(Context context, KProgressHUD hud) {
+        if (context instanceof Activity && ((Activity) context).isFinishing()) {
+            return false;
+        }
+        if (Helper.getActivity(context) != null && !HudLifecycle.getInstance().register(context)) {
+            // Without lifecycle callbacks the pool could outlive the Activity
+            return false;
+        }
+        ArrayDeque<WeakReference<KProgressHUD>> pool = mPools.get(context);
+        if (pool == null) {
+            pool = new ArrayDeque<>(mMaxPoolSize);
+            mPools.put(context, pool);
+        }
+        Iterator<WeakReference<KProgressHUD>> iterator = pool.iterator();
+        while (iterator.hasNext()) {
+            KProgressHUD pooled = iterator.next().get();
+            if (pooled == null) {
+                iterator.remove();
+            } else if (pooled == hud) {
+                return false;
+            }
+        }
+        if (pool.size() >= mMaxPoolSize) {
+            return false;
+        }
+        pool.addFirst(new WeakReference<>(hud));
+        return true;
+    }
+
+    void onActivityDestroyed(Activity activity) {
+        Iterator<Context> iterator = mPools.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (Helper.getActivity(iterator.next()) == activity) {
+                iterator.remove();
+            }
+        }
+    }
+}
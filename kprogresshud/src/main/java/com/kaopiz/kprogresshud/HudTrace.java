@@ -0,0 +1,122 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Trace;
+
+import java.lang.reflect.Method;
+
+/**
+ * System trace sections and counters of the HUD, visible in systrace and Perfetto captures
+ * of the app. Sections use the public Trace API (API 18+); counters have no public API
+ * before API 29 and go through the hidden Trace methods, looked up once.
+ * On by default: a section costs a native flag check while no trace is being captured.
+ */
+final class HudTrace {
+
+    // Trace.TRACE_TAG_APP, the tag beginSection() uses
+    private static final long TRACE_TAG_APP = 1L << 12;
+
+    private static volatile boolean sEnabled = true;
+
+    private static boolean sCounterResolved;
+    private static Method sIsEnabled;
+    private static Method sSetCounter;
+    // Created once, so checking whether a trace is being captured does not allocate
+    private static final Object[] sTagArgs = new Object[] { TRACE_TAG_APP };
+    private static final Object[] sNoArgs = new Object[0];
+
+    private HudTrace() {
+    }
+
+    static void setEnabled(boolean enabled) {
+        sEnabled = enabled;
+    }
+
+    /**
+     * Begin a section, to be closed on the same thread with {@link #end(boolean)}.
+     * @param name A constant string, so that tracing does not allocate
+     * @return Whether a section was begun
+     */
+    static boolean begin(String name) {
+        if (sEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            beginSection(name);
+            return true;
+        }
+        return false;
+    }
+
+    static void end(boolean begun) {
+        if (begun) {
+            endSection();
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void beginSection(String name) {
+        Trace.beginSection(name);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void endSection() {
+        Trace.endSection();
+    }
+
+    /**
+     * Set a counter track to the value, only while a trace is being captured. Without a capture
+     * it costs one reflective flag check and does not allocate; during a capture the value is
+     * boxed for the reflective call. Must be called on the main thread.
+     */
+    static void counter(String name, long value) {
+        if (!sEnabled || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) return;
+        if (!sCounterResolved) {
+            resolveCounter();
+        }
+        if (sSetCounter == null) return;
+        try {
+            if (Build.VERSION.SDK_INT >= 29) {
+                if ((Boolean) sIsEnabled.invoke(null, sNoArgs)) {
+                    sSetCounter.invoke(null, name, value);
+                }
+            } else if ((Boolean) sIsEnabled.invoke(null, sTagArgs)) {
+                int intValue = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+                sSetCounter.invoke(null, TRACE_TAG_APP, name, intValue);
+            }
+        } catch (Exception e) {
+            // Not available on this device, stop trying
+            sSetCounter = null;
+        }
+    }
+
+    private static void resolveCounter() {
+        sCounterResolved = true;
+        try {
+            if (Build.VERSION.SDK_INT >= 29) {
+                sIsEnabled = Trace.class.getMethod("isEnabled");
+                sSetCounter = Trace.class.getMethod("setCounter", String.class, long.class);
+            } else {
+                sIsEnabled = Trace.class.getMethod("isTagEnabled", long.class);
+                sSetCounter = Trace.class.getMethod("traceCounter", long.class, String.class, int.class);
+            }
+        } catch (Exception e) {
+            sIsEnabled = null;
+            sSetCounter = null;
+        }
+    }
+}
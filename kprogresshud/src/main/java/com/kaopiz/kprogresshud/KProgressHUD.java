@@ -16,67 +16,200 @@
 
 package com.kaopiz.kprogresshud;
 
+import android.annotation.TargetApi;
+import android.app.Activity;
 import android.app.Dialog;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.Looper;
 import android.view.Gravity;
+import android.view.KeyEvent;
+import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.Window;
 import android.view.WindowManager;
 import android.widget.FrameLayout;
 import android.widget.TextView;
-import android.widget.Toast;
 
-public class KProgressHUD {
+import com.kaopiz.kprogresshud.core.GraceTimer;
+import com.kaopiz.kprogresshud.core.ProgressCoalescer;
+import com.kaopiz.kprogresshud.core.ProgressModel;
+import com.kaopiz.kprogresshud.core.RateEstimator;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+
+public class KProgressHUD implements LongDeterminate {
 
     public enum Style {
-        SPIN_INDETERMINATE, PIE_DETERMINATE, ANNULAR_DETERMINATE, BAR_DETERMINATE
+        SPIN_INDETERMINATE, PIE_DETERMINATE, ANNULAR_DETERMINATE, BAR_DETERMINATE,
+        // Spinner animated on the RenderThread where supported, keeps turning while the main thread is busy
+        ASYNC_SPIN_INDETERMINATE
+    }
+
+    /**
+     * What the progress values count, see {@link #setEstimateDetails(ProgressUnit)}.
+     */
+    public enum ProgressUnit {
+        /** Shown as a plain rate, e.g. "42/s". */
+        ITEMS,
+        /** Shown in binary units, e.g. "1.2 MB/s". */
+        BYTES
+    }
+
+    /**
+     * How often the spinner of the indeterminate styles updates.
+     */
+    public enum Pacing {
+        /** Wake up on every display frame and redraw whenever the next step is due. */
+        EVERY_FRAME,
+        /**
+         * Default. Wake up only for the frame the next step is due on, aligned to the display
+         * refresh rate. With battery saver on, draw half the steps at the same rotation speed.
+         * Update a few times per second while the HUD window is unfocused, and not at all while
+         * it is hidden.
+         */
+        ADAPTIVE,
+        /** Like {@link #ADAPTIVE}, always drawing half the steps as with battery saver on. */
+        LOW_POWER
     }
 
     // To avoid redundant APIs, make the HUD as a wrapper class around a Dialog
     private ProgressDialog mProgressDialog;
+    // Alternative host that lives inside an existing window, created on demand
+    private ProgressOverlay mProgressOverlay;
+    private ProgressContent mContent;
+    private boolean mOverlayMode;
+    private ViewGroup mOverlayParent;
+    private boolean mCancellable;
+    private DialogInterface.OnCancelListener mCancelListener;
+    // Installed on the host, dismisses the HUD, forwards to the caller's listener and cancels
+    // bound work
+    private final DialogInterface.OnCancelListener mHostCancelListener =
+            new DialogInterface.OnCancelListener() {
+                @Override
+                public void onCancel(DialogInterface dialog) {
+                    Future<?> future = mBoundFuture;
+                    // The host is already gone, this drops the binding and what runs for it
+                    dismiss();
+                    if (mCancelListener != null) {
+                        mCancelListener.onCancel(dialog);
+                    }
+                    if (future != null) {
+                        future.cancel(true);
+                    }
+                }
+            };
     private float mDimAmount;
     private int mWindowColor;
     private float mCornerRadius;
+    private boolean mChromeCached;
     private Context mContext;
 
     private int mAnimateSpeed;
+    private Pacing mPacing;
+
+    private final ProgressModel mProgressModel = new ProgressModel();
+
+    // Speed and time remaining rendered into the details label, off while the unit is null
+    private static final long ESTIMATE_INTERVAL_NANOS = 500 * 1000000L;
+    private ProgressUnit mEstimateUnit;
+    private RateEstimator mRateEstimator;
+    private LabelBuilder mEstimateLabel;
+    private String mRateSuffix, mRemainingSuffix, mEstimateSeparator;
+    private long mEstimateRenderedNanos;
+    // Progress of the latest sample, and whether the details label shows an estimate
+    private long mEstimateProgress;
+    private boolean mEstimateDisplayed;
+    // Runs once no progress arrived for an interval, so a stalled transfer's rate decays
+    private final FrameClock.Callback mEstimateRefresher = new FrameClock.Callback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (mEstimateUnit != null && isShowing()) {
+                updateEstimate(mEstimateProgress, frameTimeNanos);
+            }
+        }
+    };
+
+    // While a show waits for the grace time, nothing is created or attached yet
+    private final GraceTimer mGraceTimer = new GraceTimer();
+    private final Runnable mGraceShow = new Runnable() {
+        @Override
+        public void run() {
+            if (mGraceTimer.onGraceElapsed()) {
+                showNow();
+            }
+        }
+    };
+
+    // Built-in indicator views, kept so that switching style or recycling does not reallocate them
+    private final View[] mStyleViews = new View[Style.values().length];
+    // Current built-in style, null when a custom view is used
+    private Style mStyle;
+    private boolean mTextureRendering;
 
-    private int mMaxProgress;
-    private boolean mIsAutoDismiss;
+    // Progress reported from any thread, applied on the main thread at most once per frame
+    private final ProgressCoalescer mProgressCoalescer = new ProgressCoalescer();
+    private final ProgressUpdater mProgressUpdater = new ProgressUpdater();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    // Set when the indicator can take progress from any thread itself
+    private volatile LongDeterminate mDirectDeterminate;
 
-    private int mGraceTimeMs;
-    private Handler mGraceTimer;
-    private boolean mFinished;
-    private boolean mDelayDismiss = false;
+    // Only set while a metrics listener is installed
+    private volatile MetricsRecorder mMetrics;
+    // Told about every dismiss, whether by the caller, a cancel or reaching max progress
+    private Runnable mDismissCallback;
 
+    // Work the HUD is bound to, dismissed on completion and cancelled with the HUD
+    private Future<?> mBoundFuture;
+    // Polling interval for tracked Futures that cannot notify their completion
+    private static final long FUTURE_POLL_MS = 100;
+    private final Runnable mFutureWatcher = new Runnable() {
+        @Override
+        public void run() {
+            if (mBoundFuture == null || mBoundFuture.isDone()) {
+                dismiss();
+            } else {
+                mMainHandler.postDelayed(this, FUTURE_POLL_MS);
+            }
+        }
+    };
+
+    /**
+     * A HUD bound to an Activity is dismissed and released when that Activity is destroyed:
+     * it drops its views and context, and ignores later calls to show().
+     * @param context Activity context that the HUD bound to
+     */
     public KProgressHUD(Context context) {
         mContext = context;
-        mProgressDialog = new ProgressDialog(context);
-        mDimAmount = 0;
-        //noinspection deprecation
-        mWindowColor = context.getResources().getColor(R.color.kprogresshud_default_color);
-        mAnimateSpeed = 1;
-        mCornerRadius = 10;
-        mIsAutoDismiss = true;
-        mFinished = false;
-
-        setStyle(Style.SPIN_INDETERMINATE);
+        mContent = new ProgressContent();
+        reset();
+        HudLifecycle.getInstance().track(this, context);
     }
 
     /**
-     * Create a new HUD. Have the same effect as the constructor.
-     * For convenient only.
+     * Create a new HUD, or hand out a recycled one bound to the same context.
+     * Have the same effect as the constructor otherwise.
      * @param context Activity context that the HUD bound to
-     * @return An unique HUD instance
+     * @return An unique HUD instance, with all settings at their defaults
+     * @see #recycle()
      */
     public static KProgressHUD create(Context context) {
-        return new KProgressHUD(context);
+        KProgressHUD hud = HudRecycler.getInstance().obtain(context);
+        return hud != null ? hud : new KProgressHUD(context);
     }
 
   /**
@@ -87,7 +220,7 @@ public class KProgressHUD {
    * @return An unique HUD instance
    */
     public static KProgressHUD create(Context context, Style style) {
-        return new KProgressHUD(context).setStyle(style);
+        return create(context).setStyle(style);
     }
 
     /**
@@ -96,23 +229,92 @@ public class KProgressHUD {
      * @return Current HUD
      */
     public KProgressHUD setStyle(Style style) {
-        View view = null;
-        switch (style) {
-            case SPIN_INDETERMINATE:
-                view = new SpinView(mContext);
-                break;
-            case PIE_DETERMINATE:
-                view = new PieView(mContext);
-                break;
-            case ANNULAR_DETERMINATE:
-                view = new AnnularView(mContext);
-                break;
-            case BAR_DETERMINATE:
-                view = new BarView(mContext);
-                break;
-            // No custom view style here, because view will be added later
-        }
-        mProgressDialog.setView(view);
+        if (mContext == null) return this;
+        View view = mStyleViews[style.ordinal()];
+        if (view == null && mTextureRendering && isDeterminate(style)) {
+            view = new TextureDeterminateView(mContext, style);
+            mStyleViews[style.ordinal()] = view;
+        } else if (view == null) {
+            switch (style) {
+                case SPIN_INDETERMINATE:
+                    view = new SpinView(mContext);
+                    break;
+                case PIE_DETERMINATE:
+                    view = new PieView(mContext);
+                    break;
+                case ANNULAR_DETERMINATE:
+                    view = new AnnularView(mContext);
+                    break;
+                case BAR_DETERMINATE:
+                    view = new BarView(mContext);
+                    break;
+                case ASYNC_SPIN_INDETERMINATE:
+                    view = new AsyncSpinView(mContext);
+                    break;
+                // No custom view style here, because view will be added later
+            }
+            mStyleViews[style.ordinal()] = view;
+        } else if (view instanceof Determinate) {
+            ((Determinate) view).setProgress(0);
+        }
+        mStyle = style;
+        mContent.setView(view);
+        return this;
+    }
+
+    /**
+     * Render the determinate styles into a TextureView from a dedicated render thread instead of
+     * the regular view drawing, so progress rendering does not depend on main thread scheduling.
+     * The indicator redraws at most once per display frame with the latest progress.
+     * Requires a hardware accelerated window. Default is false.
+     * @return Current HUD
+     */
+    public KProgressHUD setTextureRendering(boolean textureRendering) {
+        if (mTextureRendering != textureRendering) {
+            mTextureRendering = textureRendering;
+            for (Style style : Style.values()) {
+                if (isDeterminate(style)) {
+                    mStyleViews[style.ordinal()] = null;
+                }
+            }
+            if (mStyle != null) {
+                setStyle(mStyle);
+            }
+        }
+        return this;
+    }
+
+    private static boolean isDeterminate(Style style) {
+        return style == Style.PIE_DETERMINATE || style == Style.ANNULAR_DETERMINATE
+                || style == Style.BAR_DETERMINATE;
+    }
+
+    /**
+     * Show the HUD inside the host Activity's window instead of a separate dialog window.
+     * Showing and dismissing then only attaches and detaches views on the decor view,
+     * which avoids creating a new window for every show.
+     * Requires the HUD to be created with an Activity context. May be changed between shows.
+     * @param overlayMode true to attach the HUD to the Activity's decor view. Default is false.
+     * @return Current HUD
+     */
+    public KProgressHUD setOverlayMode(boolean overlayMode) {
+        mOverlayMode = overlayMode;
+        return this;
+    }
+
+    /**
+     * Show the HUD as an overlay inside the given view group instead of a separate dialog window.
+     * The HUD is centered in and covers the whole parent.
+     * @param parent The view group to attach to, or null to use the Activity's decor view
+     * @return Current HUD
+     */
+    public KProgressHUD setOverlayParent(ViewGroup parent) {
+        mOverlayMode = true;
+        mOverlayParent = parent;
+        if (mProgressOverlay != null && mProgressOverlay.mParent != parent) {
+            mProgressOverlay.dismiss();
+            mProgressOverlay = null;
+        }
         return this;
     }
 
@@ -124,6 +326,9 @@ public class KProgressHUD {
     public KProgressHUD setDimAmount(float dimAmount) {
         if (dimAmount >= 0 && dimAmount <= 1) {
             mDimAmount = dimAmount;
+            if (mProgressDialog != null) {
+                mProgressDialog.updateDimAmount();
+            }
         }
         return this;
     }
@@ -135,7 +340,7 @@ public class KProgressHUD {
      * @return Current HUD
      */
     public KProgressHUD setSize(int width, int height) {
-        mProgressDialog.setSize(width, height);
+        mContent.setSize(width, height);
         return this;
     }
 
@@ -147,6 +352,7 @@ public class KProgressHUD {
     @Deprecated
     public KProgressHUD setWindowColor(int color) {
         mWindowColor = color;
+        mContent.updateBackground();
         return this;
     }
 
@@ -157,6 +363,7 @@ public class KProgressHUD {
      */
     public KProgressHUD setBackgroundColor(int color) {
         mWindowColor = color;
+        mContent.updateBackground();
         return this;
     }
 
@@ -167,6 +374,19 @@ public class KProgressHUD {
      */
     public KProgressHUD setCornerRadius(float radius) {
         mCornerRadius = radius;
+        mContent.updateBackground();
+        return this;
+    }
+
+    /**
+     * Keep the labels in hardware layers, so that an animating or progressing indicator does not
+     * render their text again. A label whose text changes while shown, such as a progress
+     * details label, is left out. Default is false.
+     * @return Current HUD
+     */
+    public KProgressHUD setChromeCaching(boolean chromeCached) {
+        mChromeCached = chromeCached;
+        mContent.updateBackground();
         return this;
     }
 
@@ -177,6 +397,20 @@ public class KProgressHUD {
      */
     public KProgressHUD setAnimationSpeed(int scale) {
         mAnimateSpeed = scale;
+        mContent.updateAnimationSpeed();
+        return this;
+    }
+
+    /**
+     * Change how often the spinner of the indeterminate styles updates, trading smoothness for
+     * power. Has no effect on custom views, or on the async spinner while it animates on the
+     * RenderThread.
+     * @param pacing Default is {@link Pacing#ADAPTIVE}
+     * @return Current HUD
+     */
+    public KProgressHUD setPacing(Pacing pacing) {
+        mPacing = pacing;
+        mContent.updatePacing();
         return this;
     }
 
@@ -185,7 +419,7 @@ public class KProgressHUD {
      * @return Current HUD
      */
     public KProgressHUD setLabel(String label) {
-        mProgressDialog.setLabel(label);
+        mContent.setLabel(label);
         return this;
     }
 
@@ -194,7 +428,7 @@ public class KProgressHUD {
      * @return Current HUD
      */
     public KProgressHUD setLabel(String label, int color) {
-        mProgressDialog.setLabel(label, color);
+        mContent.setLabel(label, color);
         return this;
     }
 
@@ -203,7 +437,8 @@ public class KProgressHUD {
      * @return Current HUD
      */
     public KProgressHUD setDetailsLabel(String detailsLabel) {
-        mProgressDialog.setDetailsLabel(detailsLabel);
+        mEstimateDisplayed = false;
+        mContent.setDetailsLabel(detailsLabel);
         return this;
     }
 
@@ -212,7 +447,30 @@ public class KProgressHUD {
      * @return Current HUD
      */
     public KProgressHUD setDetailsLabel(String detailsLabel, int color) {
-        mProgressDialog.setDetailsLabel(detailsLabel, color);
+        mEstimateDisplayed = false;
+        mContent.setDetailsLabel(detailsLabel, color);
+        return this;
+    }
+
+    /**
+     * Set the label from a reusable buffer, for text that changes often. The text is copied,
+     * so the builder may be reused right away, and the label view is only updated when the
+     * text changed. Neither allocates. Must be called on the main thread.
+     * @return Current HUD
+     */
+    public KProgressHUD setLabel(LabelBuilder label) {
+        mContent.setLabel(label);
+        return this;
+    }
+
+    /**
+     * Set the detail description from a reusable buffer, for status text updated on every
+     * progress tick such as "12.4 MB / 300 MB", see {@link #setLabel(LabelBuilder)}.
+     * @return Current HUD
+     */
+    public KProgressHUD setDetailsLabel(LabelBuilder detailsLabel) {
+        mEstimateDisplayed = false;
+        mContent.setDetailsLabel(detailsLabel);
         return this;
     }
 
@@ -221,16 +479,169 @@ public class KProgressHUD {
      * @return Current HUD
      */
     public KProgressHUD setMaxProgress(int maxProgress) {
-        mMaxProgress = maxProgress;
+        return setMaxProgress((long) maxProgress);
+    }
+
+    /**
+     * Max value for use in one of the determinate styles, for progress beyond the int range
+     * such as sizes of large files. Views that only implement Determinate get it scaled down.
+     * @return Current HUD
+     */
+    public KProgressHUD setMaxProgress(long maxProgress) {
+        mProgressModel.setMax(maxProgress);
+        mContent.updateMax();
         return this;
     }
 
+    /**
+     * Same as {@link #setMaxProgress(int)}, lets the HUD be used wherever a Determinate is expected.
+     * Must be called on the main thread.
+     */
+    @Override
+    public void setMax(int max) {
+        setMaxProgress(max);
+    }
+
+    @Override
+    public void setMax(long max) {
+        setMaxProgress(max);
+    }
+
     /**
      * Set current progress. Only have effect when use with a determinate style, or a custom
      * view which implements Determinate interface.
+     * May be called from any thread. Only the latest value is kept, and it is applied on the
+     * main thread with the next frame, so any number of calls costs at most one update per frame.
+     * Neither reporting nor applying progress allocates.
      */
+    @Override
     public void setProgress(int progress) {
-        mProgressDialog.setProgress(progress);
+        setProgress((long) progress);
+    }
+
+    /**
+     * Set current progress as a 64-bit value, see {@link #setProgress(int)}.
+     * May be called from any thread.
+     */
+    @Override
+    public void setProgress(long progress) {
+        MetricsRecorder metrics = mMetrics;
+        if (metrics != null) {
+            metrics.onProgressReceived();
+        }
+        LongDeterminate direct = mDirectDeterminate;
+        if (direct != null) {
+            direct.setProgress(progress);
+        }
+        if (mProgressCoalescer.offer(progress)) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                FrameClock.getInstance().addCallback(mProgressUpdater);
+            } else {
+                mMainHandler.post(mProgressUpdater);
+            }
+        }
+    }
+
+    /**
+     * Set current progress as a fraction of the max progress. May be called from any thread.
+     * @param fraction From 0 to 1
+     */
+    public void setProgressFraction(float fraction) {
+        setProgress(mProgressModel.fromFraction(fraction));
+    }
+
+    /**
+     * Show the progress rate and the estimated time remaining in the details label, e.g.
+     * "1.2 MB/s, 2:35 left", replacing any details label set before. Both are estimated from
+     * the values given to setProgress() against the max progress, and the label is refreshed
+     * at most twice per second without allocating, also while no progress arrives so that the
+     * rate of a stalled transfer decays. Must be called on the main thread.
+     * @param unit What the progress values count, or null to stop estimating and clear the
+     * estimate from the details label
+     * @return Current HUD
+     */
+    public KProgressHUD setEstimateDetails(ProgressUnit unit) {
+        if (mContext == null) return this;
+        if (unit == null && mEstimateDisplayed) {
+            mContent.setDetailsLabel((String) null);
+            mEstimateDisplayed = false;
+        }
+        mEstimateUnit = unit;
+        if (unit != null && mRateEstimator == null) {
+            mRateEstimator = new RateEstimator();
+            mEstimateLabel = new LabelBuilder();
+            mRateSuffix = mContext.getString(R.string.kprogresshud_rate_suffix);
+            mRemainingSuffix = mContext.getString(R.string.kprogresshud_remaining_suffix);
+            mEstimateSeparator = mContext.getString(R.string.kprogresshud_estimate_separator);
+        }
+        resetEstimate();
+        return this;
+    }
+
+    /**
+     * @return Estimated progress per second while {@link #setEstimateDetails(ProgressUnit)}
+     * is on, 0 otherwise or before enough progress was reported
+     */
+    public double getProgressRate() {
+        return mEstimateUnit != null ? mRateEstimator.getRate() : 0;
+    }
+
+    /**
+     * @return Estimated time in milliseconds until progress reaches max while
+     * {@link #setEstimateDetails(ProgressUnit)} is on, -1 if unknown
+     */
+    public long getRemainingTime() {
+        if (mEstimateUnit == null) return -1;
+        long remaining = mRateEstimator.getRemainingNanos(mProgressModel.getMax());
+        return remaining >= 0 ? remaining / 1000000 : -1;
+    }
+
+    private void resetEstimate() {
+        FrameClock.getInstance().removeCallback(mEstimateRefresher);
+        if (mRateEstimator != null) {
+            mRateEstimator.reset();
+            mEstimateRenderedNanos = 0;
+        }
+    }
+
+    private void updateEstimate(long progress, long frameTimeNanos) {
+        mRateEstimator.update(progress, frameTimeNanos);
+        mEstimateProgress = progress;
+        // Pushed back by every sample, only runs once progress stalls
+        FrameClock.getInstance().postCallback(mEstimateRefresher, ESTIMATE_INTERVAL_NANOS);
+        if (!mRateEstimator.hasEstimate()
+                || frameTimeNanos - mEstimateRenderedNanos < ESTIMATE_INTERVAL_NANOS) {
+            return;
+        }
+        mEstimateRenderedNanos = frameTimeNanos;
+        double rate = mRateEstimator.getRate();
+        LabelBuilder label = mEstimateLabel.clear();
+        if (mEstimateUnit == ProgressUnit.BYTES) {
+            label.appendBytes((long) rate);
+        } else {
+            label.append(rate, rate < 10 ? 1 : 0);
+        }
+        label.append(mRateSuffix);
+        long remaining = mRateEstimator.getRemainingNanos(mProgressModel.getMax());
+        if (remaining >= 0) {
+            label.append(mEstimateSeparator).appendDuration(remaining / 1000000).append(mRemainingSuffix);
+        }
+        mContent.setDetailsLabel(label);
+        mEstimateDisplayed = true;
+    }
+
+    /**
+     * Receive performance metrics of every show of this HUD: show latency, visible duration,
+     * frames drawn and skipped, progress updates received and applied, and shows suppressed
+     * by the grace time. Off by default, nothing is measured without a listener.
+     * Must be called on the main thread.
+     * @param listener The listener, or null to stop measuring
+     * @return Current HUD
+     */
+    public KProgressHUD setMetricsListener(HudMetricsListener listener) {
+        mMetrics = listener != null ? new MetricsRecorder(this, listener) : null;
+        mContent.updateMetrics();
+        return this;
     }
 
     /**
@@ -240,7 +651,8 @@ public class KProgressHUD {
      */
     public KProgressHUD setCustomView(View view) {
         if (view != null) {
-            mProgressDialog.setView(view);
+            mStyle = null;
+            mContent.setView(view);
         } else {
             throw new RuntimeException("Custom view must not be null!");
         }
@@ -257,8 +669,9 @@ public class KProgressHUD {
      * @return Current HUD
      */
     public KProgressHUD setCancellable(boolean isCancellable) {
-        mProgressDialog.setCancelable(isCancellable);
-        mProgressDialog.setOnCancelListener(null);
+        mCancellable = isCancellable;
+        mCancelListener = null;
+        applyCancellable();
         return this;
     }
 
@@ -272,8 +685,9 @@ public class KProgressHUD {
      * @return Current HUD
      */
     public KProgressHUD setCancellable(DialogInterface.OnCancelListener listener) {
-        mProgressDialog.setCancelable(null != listener);
-        mProgressDialog.setOnCancelListener(listener);
+        mCancellable = null != listener;
+        mCancelListener = listener;
+        applyCancellable();
         return this;
     }
 
@@ -282,7 +696,7 @@ public class KProgressHUD {
      * @return Current HUD
      */
     public KProgressHUD setAutoDismiss(boolean isAutoDismiss) {
-        mIsAutoDismiss = isAutoDismiss;
+        mProgressModel.setAutoDismiss(isAutoDismiss);
         return this;
     }
 
@@ -296,73 +710,331 @@ public class KProgressHUD {
      * @return Current HUD
      */
     public KProgressHUD setGraceTime(int graceTimeMs) {
-        mGraceTimeMs = graceTimeMs;
+        mGraceTimer.setGraceTime(graceTimeMs);
         return this;
     }
 
+    int getGraceTime() {
+        return mGraceTimer.getGraceTime();
+    }
+
+    /**
+     * Show the HUD. With a grace time set, the HUD is only created and shown once the grace
+     * time has passed, and a {@link #dismiss()} before that cancels it without any view work.
+     * @return Current HUD
+     */
     public KProgressHUD show() {
-        if (!isShowing()) {
-            mFinished = false;
-            if (mGraceTimeMs == 0) {
-                mProgressDialog.show();
-            } else {
-                mGraceTimer = new Handler();
-                mGraceTimer.postDelayed(new Runnable() {
-                    @Override
-                    public void run() {
-                        mDelayDismiss = true;
-                        dismiss();
-                    }
-                }, mGraceTimeMs);
-                mProgressDialog.show();
+        if (mContext != null && !isShowing()) {
+            if (!mGraceTimer.isPending()) {
+                resetEstimate();
             }
+            long delay = mGraceTimer.requestShow();
+            if (delay == 0) {
+                showNow();
+            } else if (delay > 0) {
+                mMainHandler.postDelayed(mGraceShow, delay);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Show the HUD while the given work runs, and dismiss it once the work completes, fails
+     * or is cancelled. If the HUD is cancellable, cancelling it also cancels the work.
+     * A CompletableFuture (API 24+) dismisses the HUD with a single post to the main thread when
+     * it completes. Other Futures cannot notify and are checked every 100 ms instead.
+     * Must be called on the main thread.
+     * @return Current HUD
+     */
+    public KProgressHUD track(Future<?> future) {
+        mBoundFuture = future;
+        show();
+        mMainHandler.removeCallbacks(mFutureWatcher);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N || !dismissOnCompletion(future)) {
+            mMainHandler.postDelayed(mFutureWatcher, FUTURE_POLL_MS);
         }
         return this;
     }
 
+    /**
+     * @return false if the future cannot notify its completion and has to be polled
+     */
+    @TargetApi(Build.VERSION_CODES.N)
+    private boolean dismissOnCompletion(final Future<?> future) {
+        if (!(future instanceof CompletableFuture)) return false;
+        final Runnable dismiss = new Runnable() {
+            @Override
+            public void run() {
+                if (mBoundFuture == future) {
+                    dismiss();
+                }
+            }
+        };
+        ((CompletableFuture<?>) future).whenComplete(new BiConsumer<Object, Throwable>() {
+            @Override
+            public void accept(Object result, Throwable error) {
+                mMainHandler.post(dismiss);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Show the HUD and run the callable on the executor. When it finishes, the HUD is dismissed
+     * and the callback is notified, both in a single post to the main thread. If the HUD is
+     * cancellable, cancelling it interrupts the callable and reports {@link TaskCallback#onCancelled()}.
+     * Grace time is honoured, so fast tasks never show the HUD. Must be called on the main thread.
+     * @param callback Outcome receiver, may be null
+     * @return The Future of the running task
+     */
+    public <T> Future<T> execute(Executor executor, Callable<T> callable, TaskCallback<T> callback) {
+        HudFutureTask<T> task = new HudFutureTask<>(callable, callback);
+        mBoundFuture = task;
+        show();
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            mBoundFuture = null;
+            dismiss();
+            throw e;
+        }
+        return task;
+    }
+
+    private void showNow() {
+        boolean traced = HudTrace.begin("KProgressHUD.show");
+        try {
+            MetricsRecorder metrics = mMetrics;
+            if (metrics != null) {
+                metrics.onShowStarted();
+            }
+            ProgressHost host = getHost();
+            View background = host.getContentView();
+            if (background != null && background != mContent.mBackgroundLayout) {
+                // The content was last bound to the other host, move it back
+                mContent.initViews(background);
+            }
+            applyCancellable();
+            host.show();
+            if (metrics != null) {
+                metrics.onHostShown(mContent.mBackgroundLayout);
+            }
+        } finally {
+            HudTrace.end(traced);
+        }
+    }
+
     public boolean isShowing() {
-        return mProgressDialog != null && mProgressDialog.isShowing();
+        return (mProgressDialog != null && mProgressDialog.isShowing())
+                || (mProgressOverlay != null && mProgressOverlay.isShowing());
     }
 
     public void dismiss() {
-        mFinished = true;
-        if (mContext != null && mProgressDialog != null && mProgressDialog.isShowing()) {
-            if(mDelayDismiss){
-                mDelayDismiss = false;
-                Toast.makeText(mContext,"网络出现异常!",Toast.LENGTH_SHORT).show();
+        mBoundFuture = null;
+        mMainHandler.removeCallbacks(mFutureWatcher);
+        FrameClock.getInstance().removeCallback(mEstimateRefresher);
+        if (mGraceTimer.dismiss()) {
+            mMainHandler.removeCallbacks(mGraceShow);
+            if (mMetrics != null) {
+                mMetrics.onGraceSuppressed();
             }
-            mProgressDialog.dismiss();
+        } else if (mMetrics != null) {
+            mMetrics.onDismissed();
         }
-        if (mGraceTimer != null) {
-            mGraceTimer.removeCallbacksAndMessages(null);
-            mGraceTimer = null;
+        if (mContext != null && isShowing()) {
+            boolean traced = HudTrace.begin("KProgressHUD.dismiss");
+            try {
+                if (mProgressDialog != null) {
+                    mProgressDialog.dismiss();
+                }
+                if (mProgressOverlay != null) {
+                    mProgressOverlay.dismiss();
+                }
+            } finally {
+                HudTrace.end(traced);
+            }
+        }
+        if (mDismissCallback != null) {
+            mDismissCallback.run();
         }
     }
 
-    private class ProgressDialog extends Dialog {
+    /**
+     * Run the callback on the main thread whenever the HUD is dismissed, by any path.
+     */
+    void setDismissCallback(Runnable callback) {
+        mDismissCallback = callback;
+    }
+
+    /**
+     * Dismiss the HUD and hand it back so a later {@link #create(Context)} with the same context
+     * can reuse its dialog, inflated layout and indicator views instead of building new ones.
+     * Recycled HUDs are reset to defaults and released when their Activity is destroyed.
+     * The HUD must not be used by the caller after this call.
+     */
+    public void recycle() {
+        dismiss();
+        if (mContext == null) return;
+        reset();
+        HudRecycler.getInstance().recycle(mContext, this);
+    }
+
+    boolean isBoundTo(Activity activity) {
+        return mContext != null && Helper.getActivity(mContext) == activity;
+    }
+
+    /**
+     * Called when the Activity of the HUD is destroyed, before its windows are removed.
+     * Dismisses the HUD, cancels everything posted to the main thread and drops every
+     * reference leading to the Activity, so the HUD can outlive it without leaking it.
+     */
+    void release() {
+        dismiss();
+        FrameClock.getInstance().removeCallback(mProgressUpdater);
+        mMainHandler.removeCallbacks(mProgressUpdater);
+        mProgressCoalescer.cancel();
+        mProgressDialog = null;
+        mProgressOverlay = null;
+        mOverlayParent = null;
+        mCancelListener = null;
+        mMetrics = null;
+        mDismissCallback = null;
+        mDirectDeterminate = null;
+        mContent.release();
+        for (int i = 0; i < mStyleViews.length; i++) {
+            mStyleViews[i] = null;
+        }
+        mStyle = null;
+        mContext = null;
+    }
+
+    /**
+     * Limit how many recycled HUDs are kept per context (default is 3).
+     * @param maxPoolSize Maximum number of idle HUDs kept per context, 0 disables recycling
+     */
+    public static void setMaxRecycledHuds(int maxPoolSize) {
+        HudRecycler.getInstance().setMaxPoolSize(maxPoolSize);
+    }
+
+    /**
+     * Emit system trace sections for showing, dismissing, inflating and drawing HUDs, and a
+     * counter track with the current progress, so that HUD cost shows up in systrace and
+     * Perfetto captures. On by default, costs next to nothing while no trace is captured.
+     */
+    public static void setTracingEnabled(boolean enabled) {
+        HudTrace.setEnabled(enabled);
+    }
+
+    private void reset() {
+        mDimAmount = 0;
+        //noinspection deprecation
+        mWindowColor = mContext.getResources().getColor(R.color.kprogresshud_default_color);
+        mAnimateSpeed = 1;
+        mPacing = Pacing.ADAPTIVE;
+        mCornerRadius = 10;
+        mChromeCached = false;
+        mProgressModel.reset();
+        mGraceTimer.reset();
+        mMetrics = null;
+        mDismissCallback = null;
+        mEstimateUnit = null;
+        mEstimateDisplayed = false;
+        mOverlayMode = false;
+        if (mOverlayParent != null) {
+            // The overlay is tied to a caller supplied parent, do not keep it around
+            mOverlayParent = null;
+            mProgressOverlay = null;
+        }
+        mCancellable = false;
+        mCancelListener = null;
+        applyCancellable();
+        if (mProgressDialog != null) {
+            mProgressDialog.updateDimAmount();
+        }
+
+        mContent.reset();
+        mContent.updateBackground();
+        FrameClock.getInstance().removeCallback(mProgressUpdater);
+        mMainHandler.removeCallbacks(mProgressUpdater);
+        mProgressCoalescer.cancel();
+        mStyle = null;
+        setTextureRendering(false);
+        setStyle(Style.SPIN_INDETERMINATE);
+    }
+
+    private ProgressHost getHost() {
+        if (mOverlayMode) {
+            if (mProgressOverlay == null) {
+                ViewGroup parent = mOverlayParent;
+                if (parent == null) {
+                    Activity activity = Helper.getActivity(mContext);
+                    if (activity == null) {
+                        throw new IllegalStateException(
+                                "Overlay mode needs an Activity context or an overlay parent");
+                    }
+                    parent = (ViewGroup) activity.getWindow().getDecorView();
+                }
+                mProgressOverlay = new ProgressOverlay(mContext, parent);
+            }
+            return mProgressOverlay;
+        }
+        if (mProgressDialog == null) {
+            mProgressDialog = new ProgressDialog(mContext);
+        }
+        return mProgressDialog;
+    }
+
+    private void applyCancellable() {
+        ProgressHost host = mOverlayMode ? mProgressOverlay : mProgressDialog;
+        if (host != null) {
+            host.setCancelable(mCancellable);
+            host.setOnCancelListener(mHostCancelListener);
+        }
+    }
+
+    /**
+     * Something the HUD content can be displayed in: the default dialog window, or an
+     * in-window overlay attached to an existing view hierarchy.
+     */
+    private interface ProgressHost {
+        void show();
+        void dismiss();
+        boolean isShowing();
+        /**
+         * @return The inflated HUD layout of this host, or null before its first show
+         */
+        View getContentView();
+        void setCancelable(boolean cancelable);
+        void setOnCancelListener(DialogInterface.OnCancelListener listener);
+    }
+
+    private class ProgressDialog extends Dialog implements ProgressHost {
+
+        private View mBackground;
 
-        private Determinate mDeterminateView;
-        private Indeterminate mIndeterminateView;
-        private View mView;
-		private TextView mLabelText;
-        private TextView mDetailsText;
-        private String mLabel;
-        private String mDetailsLabel;
-        private FrameLayout mCustomViewContainer;
-        private BackgroundLayout mBackgroundLayout;
-        private int mWidth, mHeight;
-        private int mLabelColor = Color.WHITE;
-        private int mDetailColor = Color.WHITE;
-		
         public ProgressDialog(Context context) {
             super(context);
         }
 
         @Override
         protected void onCreate(Bundle savedInstanceState) {
-            super.onCreate(savedInstanceState);
+            boolean traced = HudTrace.begin("KProgressHUD.onCreate");
+            try {
+                super.onCreate(savedInstanceState);
+                setUpWindow();
+            } finally {
+                HudTrace.end(traced);
+            }
+        }
+
+        private void setUpWindow() {
             requestWindowFeature(Window.FEATURE_NO_TITLE);
-            setContentView(R.layout.kprogresshud_hud);
+            boolean traced = HudTrace.begin("KProgressHUD.inflate");
+            try {
+                setContentView(R.layout.kprogresshud_hud);
+            } finally {
+                HudTrace.end(traced);
+            }
 
             Window window = getWindow();
             window.setBackgroundDrawable(new ColorDrawable(0));
@@ -374,35 +1046,230 @@ public class KProgressHUD {
 
             setCanceledOnTouchOutside(false);
 
-            initViews();
+            mBackground = findViewById(R.id.background);
+            mContent.initViews(mBackground);
+        }
+
+        @Override
+        public View getContentView() {
+            return mBackground;
+        }
+
+        private void updateDimAmount() {
+            Window window = getWindow();
+            WindowManager.LayoutParams layoutParams = window.getAttributes();
+            layoutParams.dimAmount = mDimAmount;
+            window.setAttributes(layoutParams);
+        }
+    }
+
+    /**
+     * Hosts the HUD inside an existing view hierarchy instead of a separate dialog window,
+     * so showing and dismissing is a plain view attach and detach.
+     */
+    private class ProgressOverlay extends FrameLayout implements ProgressHost, DialogInterface {
+
+        private ViewGroup mParent;
+        private View mBackground;
+        private boolean mCancelable;
+        private DialogInterface.OnCancelListener mCancelListener;
+
+        public ProgressOverlay(Context context, ViewGroup parent) {
+            super(context);
+            mParent = parent;
+            // Swallow touches and keys like a modal dialog would
+            setClickable(true);
+            setFocusable(true);
+            setFocusableInTouchMode(true);
+        }
+
+        @Override
+        public void show() {
+            if (isShowing()) return;
+            if (mBackground == null) {
+                boolean traced = HudTrace.begin("KProgressHUD.inflate");
+                try {
+                    mBackground = LayoutInflater.from(getContext())
+                            .inflate(R.layout.kprogresshud_hud, this, false);
+                } finally {
+                    HudTrace.end(traced);
+                }
+                int wrapParam = ViewGroup.LayoutParams.WRAP_CONTENT;
+                addView(mBackground, new FrameLayout.LayoutParams(wrapParam, wrapParam, Gravity.CENTER));
+                mContent.initViews(mBackground);
+            }
+            setBackgroundColor(Color.argb((int) (mDimAmount * 255), 0, 0, 0));
+            int matchParam = ViewGroup.LayoutParams.MATCH_PARENT;
+            mParent.addView(this, new ViewGroup.LayoutParams(matchParam, matchParam));
+            requestFocus();
+        }
+
+        @Override
+        public void dismiss() {
+            if (isShowing()) {
+                mParent.removeView(this);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            // Like Dialog.cancel(): the host goes away, then the HUD hears of it from the listener
+            dismiss();
+            if (mCancelListener != null) {
+                mCancelListener.onCancel(this);
+            }
+        }
+
+        @Override
+        public boolean isShowing() {
+            return getParent() != null;
+        }
+
+        @Override
+        public View getContentView() {
+            return mBackground;
+        }
+
+        @Override
+        public void setCancelable(boolean cancelable) {
+            mCancelable = cancelable;
+        }
+
+        @Override
+        public void setOnCancelListener(DialogInterface.OnCancelListener listener) {
+            mCancelListener = listener;
+        }
+
+        @Override
+        public boolean dispatchKeyEvent(KeyEvent event) {
+            if (event.getKeyCode() == KeyEvent.KEYCODE_BACK) {
+                if (mCancelable && event.getAction() == KeyEvent.ACTION_UP && !event.isCanceled()) {
+                    cancel();
+                }
+                return true;
+            }
+            return super.dispatchKeyEvent(event);
+        }
+    }
+
+    /**
+     * Dismisses the HUD and delivers the outcome with one post to the main thread.
+     */
+    private class HudFutureTask<T> extends FutureTask<T> {
+
+        private final TaskCallback<T> mCallback;
+        private final Runnable mDeliver = new Runnable() {
+            @Override
+            public void run() {
+                deliver();
+            }
+        };
+
+        HudFutureTask(Callable<T> callable, TaskCallback<T> callback) {
+            super(callable);
+            mCallback = callback;
+        }
+
+        @Override
+        protected void done() {
+            mMainHandler.post(mDeliver);
+        }
+
+        private void deliver() {
+            if (mBoundFuture == this) {
+                dismiss();
+            }
+            if (mCallback == null) return;
+            T result;
+            try {
+                result = get();
+            } catch (CancellationException e) {
+                mCallback.onCancelled();
+                return;
+            } catch (ExecutionException e) {
+                mCallback.onFailure(e.getCause());
+                return;
+            } catch (InterruptedException e) {
+                // Cannot happen, the task is done
+                mCallback.onFailure(e);
+                return;
+            }
+            mCallback.onSuccess(result);
+        }
+    }
+
+    /**
+     * Moves the latest pending progress to the main thread and applies it on the next frame.
+     */
+    private class ProgressUpdater implements Runnable, FrameClock.Callback {
+
+        @Override
+        public void run() {
+            FrameClock.getInstance().addCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            FrameClock.getInstance().removeCallback(this);
+            if (mMetrics != null) {
+                mMetrics.onProgressApplied();
+            }
+            long progress = mProgressCoalescer.drain();
+            if (mEstimateUnit != null) {
+                updateEstimate(progress, frameTimeNanos);
+            }
+            mContent.setProgress(progress);
+        }
+    }
+
+    /**
+     * The HUD view hierarchy inflated from kprogresshud_hud.xml, shared by every host.
+     */
+    private class ProgressContent {
+
+        private Determinate mDeterminateView;
+        private Indeterminate mIndeterminateView;
+        private View mView;
+        private final LabelText mLabel = new LabelText();
+        private final LabelText mDetailsLabel = new LabelText();
+        private FrameLayout mCustomViewContainer;
+        private BackgroundLayout mBackgroundLayout;
+        private int mWidth, mHeight;
+
+        private void initViews(View background) {
+            boolean traced = HudTrace.begin("KProgressHUD.initViews");
+            try {
+                bindViews(background);
+            } finally {
+                HudTrace.end(traced);
+            }
         }
 
-        private void initViews() {
-            mBackgroundLayout = (BackgroundLayout) findViewById(R.id.background);
-            mBackgroundLayout.setBaseColor(mWindowColor);
-            mBackgroundLayout.setCornerRadius(mCornerRadius);
+        private void bindViews(View background) {
+            mBackgroundLayout = (BackgroundLayout) background;
+            updateBackground();
             if (mWidth != 0) {
                 updateBackgroundSize();
             }
 
-            mCustomViewContainer = (FrameLayout) findViewById(R.id.container);
+            mCustomViewContainer = (FrameLayout) background.findViewById(R.id.container);
+            // Empty unless the content was bound to this layout before, then holds a stale view
+            mCustomViewContainer.removeAllViews();
             addViewToFrame(mView);
 
-            if (mDeterminateView != null) {
-                mDeterminateView.setMax(mMaxProgress);
-            }
-            if (mIndeterminateView != null) {
-                mIndeterminateView.setAnimationSpeed(mAnimateSpeed);
-            }
+            updateMax();
+            updateAnimationSpeed();
 
-            mLabelText = (TextView) findViewById(com.kaopiz.kprogresshud.R.id.label);
-            setLabel(mLabel, mLabelColor);
-            mDetailsText = (TextView) findViewById(com.kaopiz.kprogresshud.R.id.details_label);
-            setDetailsLabel(mDetailsLabel, mDetailColor);
+            mLabel.bind((TextView) background.findViewById(com.kaopiz.kprogresshud.R.id.label));
+            mDetailsLabel.bind((TextView) background.findViewById(com.kaopiz.kprogresshud.R.id.details_label));
         }
 
         private void addViewToFrame(View view) {
             if (view == null) return;
+            if (view.getParent() instanceof ViewGroup) {
+                // The view may still belong to a previous host
+                ((ViewGroup) view.getParent()).removeView(view);
+            }
             int wrapParam = ViewGroup.LayoutParams.WRAP_CONTENT;
             ViewGroup.LayoutParams params = new ViewGroup.LayoutParams(wrapParam, wrapParam);
             mCustomViewContainer.addView(view, params);
@@ -410,15 +1277,79 @@ public class KProgressHUD {
 
         private void updateBackgroundSize() {
             ViewGroup.LayoutParams params = mBackgroundLayout.getLayoutParams();
-            params.width = Helper.dpToPixel(mWidth, getContext());
-            params.height = Helper.dpToPixel(mHeight, getContext());
+            if (mWidth != 0) {
+                params.width = Helper.dpToPixel(mWidth, mContext);
+                params.height = Helper.dpToPixel(mHeight, mContext);
+            } else {
+                params.width = ViewGroup.LayoutParams.WRAP_CONTENT;
+                params.height = ViewGroup.LayoutParams.WRAP_CONTENT;
+            }
             mBackgroundLayout.setLayoutParams(params);
         }
 
-        public void setProgress(int progress) {
+        private void updateBackground() {
+            if (mBackgroundLayout != null) {
+                mBackgroundLayout.setBaseColor(mWindowColor);
+                mBackgroundLayout.setCornerRadius(mCornerRadius);
+            }
+            mLabel.setLayered(mChromeCached);
+            mDetailsLabel.setLayered(mChromeCached);
+        }
+
+        // Like the initial values, later changes only reach the views once they are inflated
+        private void updateMax() {
+            if (mCustomViewContainer != null && mDeterminateView != null) {
+                if (mDeterminateView instanceof LongDeterminate) {
+                    ((LongDeterminate) mDeterminateView).setMax(mProgressModel.getMax());
+                } else {
+                    mDeterminateView.setMax(mProgressModel.getIntMax());
+                }
+            }
+        }
+
+        private void updatePacing() {
+            if (mView instanceof SpinView) {
+                ((SpinView) mView).setPacing(mPacing);
+            }
+        }
+
+        private void updateMetrics() {
+            if (mView instanceof SpinView) {
+                ((SpinView) mView).setMetrics(mMetrics);
+            }
+        }
+
+        private void updateAnimationSpeed() {
+            if (mCustomViewContainer != null && mIndeterminateView != null) {
+                mIndeterminateView.setAnimationSpeed(mAnimateSpeed);
+            }
+        }
+
+        private void release() {
+            mDeterminateView = null;
+            mIndeterminateView = null;
+            mView = null;
+            mLabel.bind(null);
+            mDetailsLabel.bind(null);
+            mCustomViewContainer = null;
+            mBackgroundLayout = null;
+        }
+
+        private void reset() {
+            mLabel.reset();
+            mDetailsLabel.reset();
+            setSize(0, 0);
+        }
+
+        public void setProgress(long progress) {
+            HudTrace.counter("KProgressHUD.progress", progress);
             if (mDeterminateView != null) {
-                mDeterminateView.setProgress(progress);
-                if (mIsAutoDismiss && progress >= mMaxProgress) {
+                if (mDeterminateView instanceof LongDeterminate) {
+                    ((LongDeterminate) mDeterminateView).setProgress(progress);
+                } else {
+                    mDeterminateView.setProgress(mProgressModel.toIntProgress(progress));
+                }
+                if (mProgressModel.isComplete(progress)) {
                     dismiss();
                 }
             }
@@ -426,70 +1357,44 @@ public class KProgressHUD {
 
         public void setView(View view) {
             if (view != null) {
-                if (view instanceof Determinate) {
-                    mDeterminateView = (Determinate) view;
-                }
-                if (view instanceof Indeterminate) {
-                    mIndeterminateView = (Indeterminate) view;
-                }
+                mDeterminateView = view instanceof Determinate ? (Determinate) view : null;
+                mDirectDeterminate = view instanceof TextureDeterminateView
+                        ? (LongDeterminate) view : null;
+                mIndeterminateView = view instanceof Indeterminate ? (Indeterminate) view : null;
                 mView = view;
-                if (isShowing()) {
+                updateMetrics();
+                updatePacing();
+                if (mCustomViewContainer != null) {
                     mCustomViewContainer.removeAllViews();
                     addViewToFrame(view);
+                    updateMax();
+                    updateAnimationSpeed();
                 }
             }
         }
 
         public void setLabel(String label) {
-            mLabel = label;
-            if (mLabelText != null) {
-                if (label != null) {
-                    mLabelText.setText(label);
-                    mLabelText.setVisibility(View.VISIBLE);
-                } else {
-                    mLabelText.setVisibility(View.GONE);
-                }
-            }
+            mLabel.set(label);
         }
 
         public void setDetailsLabel(String detailsLabel) {
-            mDetailsLabel = detailsLabel;
-            if (mDetailsText != null) {
-                if (detailsLabel != null) {
-                    mDetailsText.setText(detailsLabel);
-                    mDetailsText.setVisibility(View.VISIBLE);
-                } else {
-                    mDetailsText.setVisibility(View.GONE);
-                }
-            }
+            mDetailsLabel.set(detailsLabel);
         }
 
         public void setLabel(String label, int color) {
-            mLabel = label;
-            mLabelColor = color;
-            if (mLabelText != null) {
-                if (label != null) {
-                    mLabelText.setText(label);
-                    mLabelText.setTextColor(color);
-                    mLabelText.setVisibility(View.VISIBLE);
-                } else {
-                    mLabelText.setVisibility(View.GONE);
-                }
-            }
+            mLabel.set(label, color);
         }
 
         public void setDetailsLabel(String detailsLabel, int color) {
-            mDetailsLabel = detailsLabel;
-            mDetailColor = color;
-            if (mDetailsText != null) {
-                if (detailsLabel != null) {
-                    mDetailsText.setText(detailsLabel);
-                    mDetailsText.setTextColor(color);
-                    mDetailsText.setVisibility(View.VISIBLE);
-                } else {
-                    mDetailsText.setVisibility(View.GONE);
-                }
-            }
+            mDetailsLabel.set(detailsLabel, color);
+        }
+
+        public void setLabel(LabelBuilder label) {
+            mLabel.set(label);
+        }
+
+        public void setDetailsLabel(LabelBuilder detailsLabel) {
+            mDetailsLabel.set(detailsLabel);
         }
 
         public void setSize(int width, int height) {
@@ -0,0 +1,220 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+/**
+ * Reusable text buffer for labels that change often, such as "12.4 MB / 300 MB" updated on
+ * every progress tick. Numbers and sizes are written straight into the buffer, so building a
+ * label allocates nothing once the buffer is large enough. Pass it to
+ * {@link KProgressHUD#setDetailsLabel(LabelBuilder)}, which copies the text and only touches
+ * the TextView when the text changed. Not thread-safe.
+ */
+public final class LabelBuilder implements CharSequence {
+
+    private static final String[] BYTE_UNITS = { "B", "KB", "MB", "GB", "TB", "PB", "EB" };
+    private static final long[] POWERS_OF_TEN = {
+            1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000
+    };
+
+    private char[] mChars;
+    private int mLength;
+
+    public LabelBuilder() {
+        this(32);
+    }
+
+    public LabelBuilder(int capacity) {
+        mChars = new char[Math.max(1, capacity)];
+    }
+
+    public LabelBuilder clear() {
+        mLength = 0;
+        return this;
+    }
+
+    public LabelBuilder append(char c) {
+        ensureCapacity(mLength + 1);
+        mChars[mLength++] = c;
+        return this;
+    }
+
+    public LabelBuilder append(CharSequence text) {
+        if (text == null) text = "null";
+        int length = text.length();
+        ensureCapacity(mLength + length);
+        if (text instanceof String) {
+            ((String) text).getChars(0, length, mChars, mLength);
+        } else {
+            for (int i = 0; i < length; i++) {
+                mChars[mLength + i] = text.charAt(i);
+            }
+        }
+        mLength += length;
+        return this;
+    }
+
+    public LabelBuilder append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append("-9223372036854775808");
+        }
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            digits++;
+        }
+        ensureCapacity(mLength + digits);
+        for (int i = mLength + digits - 1; i >= mLength; i--) {
+            mChars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        mLength += digits;
+        return this;
+    }
+
+    /**
+     * Append a number rounded to a fixed number of decimals, e.g. 12.4 for (12.37, 1).
+     * @param decimals From 0 to 9
+     */
+    public LabelBuilder append(double value, int decimals) {
+        decimals = Math.max(0, Math.min(POWERS_OF_TEN.length - 1, decimals));
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return append(Double.isNaN(value) ? "NaN" : value > 0 ? "Infinity" : "-Infinity");
+        }
+        long scale = POWERS_OF_TEN[decimals];
+        double scaled = Math.abs(value) * scale;
+        if (scaled >= Long.MAX_VALUE) {
+            // Beyond what fixed point can hold, rare enough to allow the allocation
+            return append(String.valueOf(value));
+        }
+        long rounded = Math.round(scaled);
+        if (value < 0 && rounded != 0) {
+            append('-');
+        }
+        append(rounded / scale);
+        if (decimals > 0) {
+            append('.');
+            long fraction = rounded % scale;
+            for (long p = scale / 10; p > 0; p /= 10) {
+                append((char) ('0' + fraction / p % 10));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Append a byte count in binary units, e.g. "512 B", "12.4 MB" or "300 MB": one decimal
+     * below 100 of a unit, none from there on.
+     */
+    public LabelBuilder appendBytes(long bytes) {
+        if (bytes < 0) {
+            append('-');
+            bytes = bytes == Long.MIN_VALUE ? Long.MAX_VALUE : -bytes;
+        }
+        if (bytes < 1024) {
+            return append(bytes).append(' ').append(BYTE_UNITS[0]);
+        }
+        int unit = 0;
+        double value = bytes;
+        // Values that would round up to 1024 move on to the next unit as well
+        while (value >= 1023.5 && unit < BYTE_UNITS.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return append(value, value < 99.95 ? 1 : 0).append(' ').append(BYTE_UNITS[unit]);
+    }
+
+    /**
+     * Append progress as a whole percentage, e.g. "42%".
+     */
+    public LabelBuilder appendPercent(long progress, long max) {
+        if (max <= 0) {
+            return append('0').append('%');
+        }
+        progress = Math.max(0, Math.min(progress, max));
+        // Whole numbers where they fit, as 0.29 * 100 is 28.999... in floating point
+        long percent = progress <= Long.MAX_VALUE / 100
+                ? progress * 100 / max : (long) ((double) progress / max * 100);
+        return append(percent).append('%');
+    }
+
+    /**
+     * Append a duration as "m:ss", or "h:mm:ss" from one hour on, rounded to whole seconds.
+     */
+    public LabelBuilder appendDuration(long millis) {
+        millis = Math.max(0, millis);
+        // Rounded without adding first, which would overflow near Long.MAX_VALUE
+        long seconds = millis / 1000 + (millis % 1000 >= 500 ? 1 : 0);
+        long hours = seconds / 3600;
+        long minutes = seconds / 60 % 60;
+        if (hours > 0) {
+            append(hours).append(':');
+            if (minutes < 10) append('0');
+        }
+        append(minutes).append(':');
+        if (seconds % 60 < 10) append('0');
+        return append(seconds % 60);
+    }
+
+    @Override
+    public int length() {
+        return mLength;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= mLength) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + mLength);
+        }
+        return mChars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return new String(mChars, 0, mLength);
+    }
+
+    /**
+     * @return true if the first length chars of the array hold the same text
+     */
+    boolean contentEquals(char[] chars, int length) {
+        if (length != mLength) return false;
+        for (int i = 0; i < length; i++) {
+            if (chars[i] != mChars[i]) return false;
+        }
+        return true;
+    }
+
+    void getChars(char[] dst) {
+        System.arraycopy(mChars, 0, dst, 0, mLength);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > mChars.length) {
+            char[] chars = new char[Math.max(capacity, mChars.length * 2)];
+            System.arraycopy(mChars, 0, chars, 0, mLength);
+            mChars = chars;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.graphics.Color;
+import android.text.TextUtils;
+import android.view.View;
+import android.widget.TextView;
+
+/**
+ * State of one HUD label, applied to its TextView once inflated. Only calls into the TextView
+ * for what actually changed: text, color or visibility. Text from a {@link LabelBuilder} is
+ * copied into a buffer owned here and handed to the TextView without creating a String.
+ * When layered, the label is kept in a hardware layer for as long as its text stays the same:
+ * a label rewritten while layered, like a progress or estimate details label, gives up its
+ * layer until the next reset, since every rewrite would render the layer again.
+ */
+final class LabelText {
+
+    private TextView mView;
+    private String mString;
+    // Used instead of mString while the text comes from a LabelBuilder
+    private boolean mUseChars;
+    private char[] mChars = new char[0];
+    private int mLength;
+    private int mColor = Color.WHITE;
+
+    private boolean mTextApplied;
+    private boolean mColorApplied;
+    private int mAppliedVisibility = -1;
+
+    private boolean mLayered;
+    // Set once the text changed while layered
+    private boolean mVolatile;
+    private boolean mLayerApplied;
+
+    void bind(TextView view) {
+        mView = view;
+        mTextApplied = false;
+        mColorApplied = false;
+        mAppliedVisibility = -1;
+        mLayerApplied = false;
+        apply();
+    }
+
+    void setLayered(boolean layered) {
+        mLayered = layered;
+        apply();
+    }
+
+    void set(String text) {
+        if (!mUseChars && TextUtils.equals(text, mString)) return;
+        mUseChars = false;
+        mString = text;
+        mTextApplied = false;
+        apply();
+    }
+
+    void set(String text, int color) {
+        setColor(color);
+        set(text);
+        apply();
+    }
+
+    void set(LabelBuilder text) {
+        if (mUseChars && text.contentEquals(mChars, mLength)) return;
+        if (mChars.length < text.length()) {
+            mChars = new char[Math.max(text.length(), mChars.length * 2)];
+        }
+        // The TextView keeps a reference to the buffer, so it is only rewritten right before
+        // the TextView is given the new text
+        text.getChars(mChars);
+        mLength = text.length();
+        mUseChars = true;
+        mString = null;
+        mTextApplied = false;
+        apply();
+    }
+
+    void setColor(int color) {
+        if (color != mColor) {
+            mColor = color;
+            mColorApplied = false;
+        }
+    }
+
+    int getColor() {
+        return mColor;
+    }
+
+    void reset() {
+        mUseChars = false;
+        mString = null;
+        mTextApplied = false;
+        mLayered = false;
+        mVolatile = false;
+        setColor(Color.WHITE);
+        apply();
+    }
+
+    private void apply() {
+        if (mView == null) return;
+        boolean visible = mUseChars || mString != null;
+        if (visible) {
+            if (!mTextApplied) {
+                if (mLayerApplied) {
+                    mVolatile = true;
+                }
+                if (mUseChars) {
+                    mView.setText(mChars, 0, mLength);
+                } else {
+                    mView.setText(mString);
+                }
+                mTextApplied = true;
+            }
+            if (!mColorApplied) {
+                mView.setTextColor(mColor);
+                mColorApplied = true;
+            }
+        }
+        int visibility = visible ? View.VISIBLE : View.GONE;
+        if (visibility != mAppliedVisibility) {
+            mView.setVisibility(visibility);
+            mAppliedVisibility = visibility;
+        }
+        boolean layer = mLayered && !mVolatile && visible;
+        if (layer != mLayerApplied) {
+            mView.setLayerType(layer ? View.LAYER_TYPE_HARDWARE : View.LAYER_TYPE_NONE, null);
+            mLayerApplied = layer;
+        }
+    }
+}
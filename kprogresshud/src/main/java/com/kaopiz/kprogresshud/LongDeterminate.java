@@ -0,0 +1,27 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+/**
+ * A {@link Determinate} that also takes 64-bit values, so progress of large transfers can be
+ * reported without rescaling. Views that only implement Determinate keep working: the HUD
+ * scales long values down to the int range for them.
+ */
+public interface LongDeterminate extends Determinate {
+    void setMax(long max);
+    void setProgress(long progress);
+}
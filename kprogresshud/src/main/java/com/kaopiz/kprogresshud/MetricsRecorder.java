@@ -0,0 +1,111 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * Collects the {@link HudMetrics} of a HUD and notifies its listener. Only exists while a
+ * listener is installed, so a HUD without one pays a null check per event.
+ * Main thread only, except for {@link #onProgressReceived()}.
+ */
+final class MetricsRecorder implements ViewTreeObserver.OnPreDrawListener {
+
+    private final KProgressHUD mHud;
+    private final HudMetricsListener mListener;
+    private final HudMetrics mMetrics = new HudMetrics();
+    private View mContent;
+    private ViewTreeObserver mObserver;
+    private boolean mActive;
+    private long mShowStartNanos;
+    private long mFirstFrameNanos;
+
+    MetricsRecorder(KProgressHUD hud, HudMetricsListener listener) {
+        mHud = hud;
+        mListener = listener;
+    }
+
+    /**
+     * The HUD starts to appear, before its window and views are created.
+     */
+    void onShowStarted() {
+        mMetrics.reset();
+        mActive = true;
+        mShowStartNanos = System.nanoTime();
+        mFirstFrameNanos = 0;
+    }
+
+    /**
+     * The host is showing, start counting the frames drawn by the window of its content.
+     */
+    void onHostShown(View content) {
+        if (!mActive || content == null) return;
+        removeObserver();
+        mContent = content;
+        mObserver = content.getViewTreeObserver();
+        mObserver.addOnPreDrawListener(this);
+    }
+
+    @Override
+    public boolean onPreDraw() {
+        mMetrics.mFramesDrawn++;
+        if (mFirstFrameNanos == 0) {
+            mFirstFrameNanos = System.nanoTime();
+            mMetrics.mShowLatencyNanos = mFirstFrameNanos - mShowStartNanos;
+            mListener.onShown(mHud, mMetrics);
+        }
+        return true;
+    }
+
+    void onDismissed() {
+        if (!mActive) return;
+        mActive = false;
+        removeObserver();
+        if (mFirstFrameNanos != 0) {
+            mMetrics.mVisibleDurationNanos = System.nanoTime() - mFirstFrameNanos;
+        }
+        mListener.onDismissed(mHud, mMetrics);
+    }
+
+    void onGraceSuppressed() {
+        mListener.onGraceSuppressed(mHud);
+    }
+
+    void onProgressReceived() {
+        mMetrics.mProgressReceived.incrementAndGet();
+    }
+
+    void onProgressApplied() {
+        mMetrics.mProgressApplied++;
+    }
+
+    void onSpinnerFrame(int skippedFrames) {
+        mMetrics.mSpinnerSkippedFrames += skippedFrames;
+    }
+
+    private void removeObserver() {
+        if (mObserver == null) return;
+        // The observer of a detached view is merged into the window's one once attached
+        ViewTreeObserver observer = mObserver.isAlive() ? mObserver : mContent.getViewTreeObserver();
+        if (observer.isAlive()) {
+            observer.removeOnPreDrawListener(this);
+        }
+        mObserver = null;
+        mContent = null;
+    }
+}
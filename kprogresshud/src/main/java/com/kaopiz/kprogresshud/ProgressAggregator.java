@@ -0,0 +1,146 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.kaopiz.kprogresshud.core.ProgressModel;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Combines the progress of many concurrent tasks into one determinate HUD.
+ * Every task reports through its own {@link Task} handle, so tasks running on different
+ * threads never write to a shared counter. The HUD sums all handles on the main thread once
+ * per frame and is dismissed when every task has completed.
+ */
+public class ProgressAggregator {
+
+    // Progress resolution given to the HUD, independent of the byte or item counts of the tasks
+    static final int PROGRESS_RESOLUTION = 10000;
+
+    private final KProgressHUD mHud;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    // Replaced on every new task, so the frame callback can iterate without locking or allocating
+    private volatile Task[] mTasks = new Task[0];
+    private boolean mSampling;
+    private final Sampler mSampler = new Sampler();
+    private int mLastProgress = -1;
+
+    public ProgressAggregator(KProgressHUD hud) {
+        mHud = hud;
+    }
+
+    /**
+     * Start tracking a new task. May be called from any thread.
+     * @param total Amount of work of the task, e.g. its size in bytes
+     * @return The handle the task reports its progress to
+     */
+    public Task newTask(long total) {
+        Task task = new Task(total);
+        synchronized (this) {
+            Task[] tasks = new Task[mTasks.length + 1];
+            System.arraycopy(mTasks, 0, tasks, 0, mTasks.length);
+            tasks[mTasks.length] = task;
+            mTasks = tasks;
+            if (!mSampling) {
+                mSampling = true;
+                mMainHandler.post(mSampler);
+            }
+        }
+        return task;
+    }
+
+    private class Sampler implements Runnable, FrameClock.Callback {
+
+        @Override
+        public void run() {
+            mLastProgress = -1;
+            // Only completion of every task dismisses, not the sum reaching max ahead of it
+            mHud.setAutoDismiss(false);
+            mHud.setMaxProgress(PROGRESS_RESOLUTION);
+            FrameClock.getInstance().addCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            Task[] tasks = mTasks;
+            long done = 0;
+            long total = 0;
+            boolean completed = true;
+            for (Task task : tasks) {
+                done += task.mDone.get();
+                total += task.mTotal;
+                completed &= task.mCompleted;
+            }
+            if (completed) {
+                synchronized (ProgressAggregator.this) {
+                    if (tasks != mTasks) return; // A task was added meanwhile, sample again
+                    mTasks = new Task[0];
+                    mSampling = false;
+                }
+                FrameClock.getInstance().removeCallback(this);
+                mHud.dismiss();
+                return;
+            }
+            int progress = ProgressModel.quantize(done, total, PROGRESS_RESOLUTION);
+            if (progress != mLastProgress) {
+                mLastProgress = progress;
+                mHud.setProgress(progress);
+            }
+        }
+    }
+
+    /**
+     * Progress handle of a single task. Meant to be updated by the thread running the task.
+     */
+    public static final class Task {
+
+        private final AtomicLong mDone = new AtomicLong();
+        private volatile long mTotal;
+        private volatile boolean mCompleted;
+
+        private Task(long total) {
+            mTotal = total;
+        }
+
+        /**
+         * Change the total amount of work, e.g. once the content length is known.
+         */
+        public void setTotal(long total) {
+            mTotal = total;
+        }
+
+        public void setProgress(long done) {
+            mDone.set(done);
+        }
+
+        public void addProgress(long delta) {
+            mDone.addAndGet(delta);
+        }
+
+        /**
+         * Mark the task as finished, whether it succeeded or not. The HUD is dismissed once all
+         * tasks are complete.
+         */
+        public void complete() {
+            mDone.set(mTotal);
+            mCompleted = true;
+        }
+    }
+}
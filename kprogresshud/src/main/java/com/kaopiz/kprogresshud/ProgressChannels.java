@@ -0,0 +1,86 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Zero-copy FileChannel transfers that report progress to a HUD or any other
+ * {@link Determinate}. The transfer is split into chunks of step bytes, each done with
+ * {@link FileChannel#transferTo} or {@link FileChannel#transferFrom} on the unwrapped channels,
+ * so the kernel still moves the data without copying it through the Java heap.
+ */
+public final class ProgressChannels {
+
+    // Chunk size, large enough not to defeat the zero-copy path
+    public static final long DEFAULT_STEP = 1024 * 1024;
+
+    private ProgressChannels() {
+    }
+
+    /**
+     * Transfer count bytes from the file, starting at position, to the target channel.
+     * @return Number of bytes transferred, less than count if the file is shorter
+     */
+    public static long transferTo(FileChannel src, long position, long count,
+                                  WritableByteChannel dst, Determinate target) throws IOException {
+        return transferTo(src, position, count, dst, target, DEFAULT_STEP);
+    }
+
+    public static long transferTo(FileChannel src, long position, long count,
+                                  WritableByteChannel dst, Determinate target, long step)
+            throws IOException {
+        ProgressCounter counter = new ProgressCounter(target, 0, step);
+        long chunk = Math.max(1, step);
+        long done = 0;
+        while (done < count) {
+            long transferred = src.transferTo(position + done, Math.min(chunk, count - done), dst);
+            if (transferred <= 0) break;
+            done += transferred;
+            counter.add(transferred);
+        }
+        counter.report();
+        return done;
+    }
+
+    /**
+     * Transfer up to count bytes from the source channel into the file, starting at position.
+     * @return Number of bytes transferred, less than count if the source ran out
+     */
+    public static long transferFrom(ReadableByteChannel src, FileChannel dst, long position,
+                                    long count, Determinate target) throws IOException {
+        return transferFrom(src, dst, position, count, target, DEFAULT_STEP);
+    }
+
+    public static long transferFrom(ReadableByteChannel src, FileChannel dst, long position,
+                                    long count, Determinate target, long step) throws IOException {
+        ProgressCounter counter = new ProgressCounter(target, 0, step);
+        long chunk = Math.max(1, step);
+        long done = 0;
+        while (done < count) {
+            long transferred = dst.transferFrom(src, position + done, Math.min(chunk, count - done));
+            if (transferred <= 0) break;
+            done += transferred;
+            counter.add(transferred);
+        }
+        counter.report();
+        return done;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+/**
+ * Counts transferred bytes for the progress stream and channel wrappers and forwards the total
+ * to a {@link Determinate} at most once per step. Targets implementing {@link LongDeterminate},
+ * such as the HUD itself, receive the full 64-bit count. Not thread-safe, like the streams using it.
+ */
+final class ProgressCounter {
+
+    static final long DEFAULT_STEP = 64 * 1024;
+
+    private final Determinate mTarget;
+    private final long mStep;
+    private long mCount;
+    private long mNextReport;
+
+    ProgressCounter(Determinate target, long initialCount, long step) {
+        if (target == null) {
+            throw new NullPointerException("Progress target must not be null");
+        }
+        mTarget = target;
+        mStep = Math.max(1, step);
+        mCount = initialCount;
+        mNextReport = initialCount + mStep;
+    }
+
+    void add(long count) {
+        if (count <= 0) return;
+        mCount += count;
+        if (mCount >= mNextReport) {
+            report();
+        }
+    }
+
+    /**
+     * Forward the exact current count, e.g. at the end of the transfer.
+     */
+    void report() {
+        mNextReport = mCount + mStep;
+        if (mTarget instanceof LongDeterminate) {
+            ((LongDeterminate) mTarget).setProgress(mCount);
+        } else {
+            mTarget.setProgress((int) Math.min(mCount, Integer.MAX_VALUE));
+        }
+    }
+
+    long getCount() {
+        return mCount;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * InputStream that reports the number of bytes read to a HUD or any other {@link Determinate}.
+ * Bulk reads go straight to the wrapped stream, and progress is only forwarded once every
+ * step bytes (64 KiB by default) and at the end of the stream, so counting adds no locking or
+ * allocation per read. Set the expected size with {@link KProgressHUD#setMaxProgress(long)}.
+ * Progress is reported on the reading thread: pass the HUD itself, or a Determinate that is
+ * safe to call from that thread.
+ */
+public class ProgressInputStream extends FilterInputStream {
+
+    private final ProgressCounter mCounter;
+
+    public ProgressInputStream(InputStream in, Determinate target) {
+        this(in, target, ProgressCounter.DEFAULT_STEP);
+    }
+
+    /**
+     * @param step Minimum number of bytes between two progress updates
+     */
+    public ProgressInputStream(InputStream in, Determinate target, long step) {
+        super(in);
+        mCounter = new ProgressCounter(target, 0, step);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0) {
+            mCounter.add(1);
+        } else {
+            mCounter.report();
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int count = in.read(b, off, len);
+        if (count > 0) {
+            mCounter.add(count);
+        } else if (count < 0) {
+            mCounter.report();
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        mCounter.add(skipped);
+        return skipped;
+    }
+
+    // Rewinding would make the reported progress go backwards
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * @return Number of bytes read or skipped so far
+     */
+    public long getCount() {
+        return mCounter.getCount();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * OutputStream that reports the number of bytes written to a HUD or any other
+ * {@link Determinate}. Bulk writes go straight to the wrapped stream, and progress is only
+ * forwarded once every step bytes (64 KiB by default) and on flush and close.
+ * Progress is reported on the writing thread: pass the HUD itself, or a Determinate that is
+ * safe to call from that thread.
+ */
+public class ProgressOutputStream extends FilterOutputStream {
+
+    private final ProgressCounter mCounter;
+
+    public ProgressOutputStream(OutputStream out, Determinate target) {
+        this(out, target, ProgressCounter.DEFAULT_STEP);
+    }
+
+    /**
+     * @param step Minimum number of bytes between two progress updates
+     */
+    public ProgressOutputStream(OutputStream out, Determinate target, long step) {
+        super(out);
+        mCounter = new ProgressCounter(target, 0, step);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        mCounter.add(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        // FilterOutputStream would write byte by byte
+        out.write(b, off, len);
+        mCounter.add(len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        super.flush();
+        mCounter.report();
+    }
+
+    /**
+     * @return Number of bytes written so far
+     */
+    public long getCount() {
+        return mCounter.getCount();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * ReadableByteChannel that reports the number of bytes read to a HUD or any other
+ * {@link Determinate}, once every step bytes (64 KiB by default) and at the end of the channel.
+ * To keep FileChannel transfers zero-copy, use {@link ProgressChannels} instead of wrapping.
+ */
+public class ProgressReadableChannel implements ReadableByteChannel {
+
+    private final ReadableByteChannel mChannel;
+    private final ProgressCounter mCounter;
+
+    public ProgressReadableChannel(ReadableByteChannel channel, Determinate target) {
+        this(channel, target, ProgressCounter.DEFAULT_STEP);
+    }
+
+    /**
+     * @param step Minimum number of bytes between two progress updates
+     */
+    public ProgressReadableChannel(ReadableByteChannel channel, Determinate target, long step) {
+        mChannel = channel;
+        mCounter = new ProgressCounter(target, 0, step);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int count = mChannel.read(dst);
+        if (count > 0) {
+            mCounter.add(count);
+        } else if (count < 0) {
+            mCounter.report();
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return mChannel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mChannel.close();
+    }
+
+    /**
+     * @return Number of bytes read so far
+     */
+    public long getCount() {
+        return mCounter.getCount();
+    }
+}
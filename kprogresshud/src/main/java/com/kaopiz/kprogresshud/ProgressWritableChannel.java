@@ -0,0 +1,69 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * WritableByteChannel that reports the number of bytes written to a HUD or any other
+ * {@link Determinate}, once every step bytes (64 KiB by default) and on close.
+ * To keep FileChannel transfers zero-copy, use {@link ProgressChannels} instead of wrapping.
+ */
+public class ProgressWritableChannel implements WritableByteChannel {
+
+    private final WritableByteChannel mChannel;
+    private final ProgressCounter mCounter;
+
+    public ProgressWritableChannel(WritableByteChannel channel, Determinate target) {
+        this(channel, target, ProgressCounter.DEFAULT_STEP);
+    }
+
+    /**
+     * @param step Minimum number of bytes between two progress updates
+     */
+    public ProgressWritableChannel(WritableByteChannel channel, Determinate target, long step) {
+        mChannel = channel;
+        mCounter = new ProgressCounter(target, 0, step);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int count = mChannel.write(src);
+        mCounter.add(count);
+        return count;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return mChannel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mCounter.report();
+        mChannel.close();
+    }
+
+    /**
+     * @return Number of bytes written so far
+     */
+    public long getCount() {
+        return mCounter.getCount();
+    }
+}
@@ -21,12 +21,23 @@ import android.graphics.Canvas;
 import android.util.AttributeSet;
 import android.widget.ImageView;
 
-class SpinView extends ImageView implements Indeterminate {
+import com.kaopiz.kprogresshud.core.FramePacer;
+import com.kaopiz.kprogresshud.core.SpinClock;
+
+class SpinView extends ImageView implements Indeterminate, FrameClock.Callback {
+
+    private static final int STEPS = 12;
+    private static final int STEPS_PER_SECOND = 12;
+    private static final float DEGREES_PER_STEP = 360f / STEPS;
 
     private float mRotateDegrees;
-    private int mFrameTime;
-    private boolean mNeedToUpdateView;
-    private Runnable mUpdateViewRunnable;
+    private int mStep;
+    private MetricsRecorder mMetrics;
+    private final SpinClock mClock = new SpinClock(STEPS, STEPS_PER_SECOND);
+
+    private KProgressHUD.Pacing mPacing = KProgressHUD.Pacing.ADAPTIVE;
+    private final FramePacer mPacer = new FramePacer();
+    private boolean mSpinning;
 
     public SpinView(Context context) {
         super(context);
@@ -40,41 +51,146 @@ class SpinView extends ImageView implements Indeterminate {
 
     private void init() {
         setImageResource(R.drawable.kprogresshud_spinner);
-        mFrameTime = 1000 / 12;
-        mUpdateViewRunnable = new Runnable() {
-            @Override
-            public void run() {
-                mRotateDegrees += 30;
-                mRotateDegrees = mRotateDegrees < 360 ? mRotateDegrees : mRotateDegrees - 360;
-                invalidate();
-                if (mNeedToUpdateView) {
-                    postDelayed(this, mFrameTime);
-                }
-            }
-        };
     }
 
     @Override
     public void setAnimationSpeed(float scale) {
-        mFrameTime = (int) (1000 / 12 / scale);
+        mClock.setSpeed(scale);
+        if (mSpinning && isPaced()) {
+            // The pending wake-up was computed for the previous speed
+            schedulePacedFrame(0);
+        }
+    }
+
+    void setPacing(KProgressHUD.Pacing pacing) {
+        if (pacing == mPacing) return;
+        boolean restart = mSpinning;
+        if (restart) {
+            stopSpinning();
+        }
+        mPacing = pacing;
+        if (restart) {
+            startSpinning();
+        }
+    }
+
+    private boolean isPaced() {
+        return mPacing != KProgressHUD.Pacing.EVERY_FRAME;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        int step = mClock.advance(frameTimeNanos);
+        int stride = 1;
+        if (isPaced()) {
+            // Show the step due nearest to this frame, and only every stride-th one
+            stride = mPacer.getStride();
+            step = mClock.stepAt(frameTimeNanos + mPacer.getLookAheadNanos());
+            step -= step % stride;
+        }
+        if (step != mStep) {
+            if (mMetrics != null) {
+                // Positions passed over between two drawn frames were never seen
+                mMetrics.onSpinnerFrame(Math.max(0, (step - mStep + STEPS) % STEPS - stride));
+            }
+            mStep = step;
+            mRotateDegrees = step * DEGREES_PER_STEP;
+            invalidate();
+        }
+        if (mSpinning && isPaced() && !mPacer.isPaused()) {
+            long delay = mPacer.getWakeUpDelayNanos(mClock.nanosUntilStep(step + stride));
+            if (delay != Long.MAX_VALUE) {
+                schedulePacedFrame(delay);
+            }
+        }
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
-        canvas.rotate(mRotateDegrees, getWidth() / 2, getHeight() / 2);
-        super.onDraw(canvas);
+        boolean traced = HudTrace.begin("KProgressHUD.SpinView.draw");
+        try {
+            canvas.rotate(mRotateDegrees, getWidth() / 2, getHeight() / 2);
+            super.onDraw(canvas);
+        } finally {
+            HudTrace.end(traced);
+        }
     }
 
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
-        mNeedToUpdateView = true;
-        post(mUpdateViewRunnable);
+        startSpinning();
     }
 
     @Override
     protected void onDetachedFromWindow() {
-        mNeedToUpdateView = false;
+        stopSpinning();
         super.onDetachedFromWindow();
     }
+
+    @Override
+    public void onWindowFocusChanged(boolean hasWindowFocus) {
+        super.onWindowFocusChanged(hasWindowFocus);
+        mPacer.setFocused(hasWindowFocus);
+        // Battery saver may have been switched meanwhile, focus changes are a cheap time to check
+        mPacer.setLowPower(mPacing == KProgressHUD.Pacing.LOW_POWER
+                || Helper.isPowerSaveMode(getContext()));
+        if (mSpinning && isPaced() && !mPacer.isPaused()) {
+            schedulePacedFrame(0);
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        mPacer.setVisible(visibility == VISIBLE);
+        if (mSpinning && isPaced()) {
+            if (mPacer.isPaused()) {
+                cancelPacedFrame();
+            } else {
+                mClock.restart();
+                schedulePacedFrame(0);
+            }
+        }
+    }
+
+    void setMetrics(MetricsRecorder metrics) {
+        mMetrics = metrics;
+    }
+
+    float getAnimationSpeed() {
+        return mClock.getSpeed();
+    }
+
+    void startSpinning() {
+        mSpinning = true;
+        mClock.restart();
+        if (isPaced()) {
+            mPacer.setRefreshRate(Helper.getRefreshRate(this));
+            mPacer.setLowPower(mPacing == KProgressHUD.Pacing.LOW_POWER
+                    || Helper.isPowerSaveMode(getContext()));
+            mPacer.setFocused(hasWindowFocus());
+            mPacer.setVisible(getWindowVisibility() == VISIBLE);
+            if (!mPacer.isPaused()) {
+                schedulePacedFrame(0);
+            }
+        } else {
+            FrameClock.getInstance().addCallback(this);
+        }
+    }
+
+    void stopSpinning() {
+        mSpinning = false;
+        // Registered either for every frame or for the next paced wake-up
+        FrameClock.getInstance().removeCallback(this);
+    }
+
+    // Wake up once for the frame the next step is due on, through the shared frame clock
+    private void schedulePacedFrame(long delayNanos) {
+        FrameClock.getInstance().postCallback(this, delayNanos);
+    }
+
+    private void cancelPacedFrame() {
+        FrameClock.getInstance().removeCallback(this);
+    }
 }
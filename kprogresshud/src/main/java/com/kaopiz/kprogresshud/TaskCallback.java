@@ -0,0 +1,28 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+/**
+ * Receives the outcome of a task started with
+ * {@link KProgressHUD#execute(java.util.concurrent.Executor, java.util.concurrent.Callable, TaskCallback)}.
+ * Exactly one method is called, on the main thread, after the HUD has been dismissed.
+ */
+public interface TaskCallback<T> {
+    void onSuccess(T result);
+    void onFailure(Throwable error);
+    void onCancelled();
+}
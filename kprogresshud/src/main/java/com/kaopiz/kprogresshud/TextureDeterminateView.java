@@ -0,0 +1,273 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.RectF;
+import android.graphics.SurfaceTexture;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.view.TextureView;
+
+import com.kaopiz.kprogresshud.core.ProgressModel;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Determinate indicator drawn into a TextureView by its own render thread. setMax() and
+ * setProgress() may be called from any thread: they only store the latest value, and the
+ * render thread redraws at most once per display frame using whatever value is current.
+ * Draws the same pie, annular and bar shapes as {@link PieView}, {@link AnnularView}
+ * and {@link BarView}. Requires a hardware accelerated window.
+ */
+class TextureDeterminateView extends TextureView implements LongDeterminate,
+        TextureView.SurfaceTextureListener {
+
+    private static final long FALLBACK_FRAME_MS = 1000 / 60;
+
+    private final KProgressHUD.Style mStyle;
+    private Paint mWhitePaint;
+    private Paint mGreyPaint;
+    private final RectF mBound = new RectF();
+    private final RectF mInBound = new RectF();
+    private HudDimens mDimens;
+    private int mPadding;
+    private float mBoundGap;
+
+    private volatile long mMax = 100;
+    private volatile long mProgress = 0;
+    private volatile int mWidth, mHeight;
+    private final AtomicBoolean mFrameRequested = new AtomicBoolean();
+
+    // Runs only while a surface is available: started with it, quit once it was released
+    private HandlerThread mRenderThread;
+    private Handler mThreadHandler;
+    // Handler of the thread drawing the current surface, null while there is none
+    private volatile Handler mRenderHandler;
+    private final Runnable mScheduleFrame;
+    private final Runnable mDrawFrame;
+    private Object mFrameCallback;
+
+    public TextureDeterminateView(Context context, KProgressHUD.Style style) {
+        super(context);
+        mStyle = style;
+        init(context);
+        setOpaque(false);
+        setSurfaceTextureListener(this);
+        mDrawFrame = new Runnable() {
+            @Override
+            public void run() {
+                drawFrame();
+            }
+        };
+        mScheduleFrame = new Runnable() {
+            @Override
+            public void run() {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                    postFrameCallback();
+                } else {
+                    Handler handler = mRenderHandler;
+                    if (handler != null) {
+                        handler.postDelayed(mDrawFrame, FALLBACK_FRAME_MS);
+                    }
+                }
+            }
+        };
+    }
+
+    private void init(Context context) {
+        mDimens = HudDimens.get(context);
+        mWhitePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mWhitePaint.setColor(Color.WHITE);
+        mGreyPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mGreyPaint.setStyle(Paint.Style.STROKE);
+        switch (mStyle) {
+            case PIE_DETERMINATE:
+                mWhitePaint.setStyle(Paint.Style.FILL_AND_STROKE);
+                mWhitePaint.setStrokeWidth(mDimens.pieFillStroke);
+                mGreyPaint.setStrokeWidth(mDimens.pieOutlineStroke);
+                mGreyPaint.setColor(Color.WHITE);
+                mPadding = mDimens.arcPadding;
+                break;
+            case ANNULAR_DETERMINATE:
+                mWhitePaint.setStyle(Paint.Style.STROKE);
+                mWhitePaint.setStrokeWidth(mDimens.annularStroke);
+                mGreyPaint.setStrokeWidth(mDimens.annularStroke);
+                //noinspection deprecation
+                mGreyPaint.setColor(context.getResources().getColor(R.color.kprogresshud_grey_color));
+                mPadding = mDimens.arcPadding;
+                break;
+            case BAR_DETERMINATE:
+                mWhitePaint.setStyle(Paint.Style.FILL);
+                mGreyPaint.setStrokeWidth(mDimens.barStroke);
+                mGreyPaint.setColor(Color.WHITE);
+                mPadding = mDimens.barPadding;
+                mBoundGap = mDimens.barGap;
+                break;
+            default:
+                throw new IllegalArgumentException("Not a determinate style: " + mStyle);
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        if (mStyle == KProgressHUD.Style.BAR_DETERMINATE) {
+            setMeasuredDimension(mDimens.barWidth, mDimens.barHeight);
+        } else {
+            setMeasuredDimension(mDimens.indicatorSize, mDimens.indicatorSize);
+        }
+    }
+
+    @Override
+    public void setMax(int max) {
+        setMax((long) max);
+    }
+
+    @Override
+    public void setMax(long max) {
+        mMax = max;
+        requestFrame();
+    }
+
+    @Override
+    public void setProgress(int progress) {
+        setProgress((long) progress);
+    }
+
+    @Override
+    public void setProgress(long progress) {
+        mProgress = progress;
+        requestFrame();
+    }
+
+    @Override
+    public void onSurfaceTextureAvailable(SurfaceTexture surface, int width, int height) {
+        mWidth = width;
+        mHeight = height;
+        mRenderThread = new HandlerThread("KProgressHUD-render");
+        mRenderThread.start();
+        mThreadHandler = new Handler(mRenderThread.getLooper());
+        mRenderHandler = mThreadHandler;
+        mFrameRequested.set(false);
+        requestFrame();
+    }
+
+    @Override
+    public void onSurfaceTextureSizeChanged(SurfaceTexture surface, int width, int height) {
+        mWidth = width;
+        mHeight = height;
+        requestFrame();
+    }
+
+    @Override
+    public boolean onSurfaceTextureDestroyed(final SurfaceTexture surface) {
+        mRenderHandler = null;
+        if (mThreadHandler == null) {
+            return true;
+        }
+        mThreadHandler.removeCallbacks(mScheduleFrame);
+        mThreadHandler.removeCallbacks(mDrawFrame);
+        // A frame may be drawing right now: release the surface on the render thread, after it,
+        // then stop the thread so that no idle thread outlives the surface
+        final Looper looper = mRenderThread.getLooper();
+        mThreadHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                surface.release();
+                looper.quit();
+            }
+        });
+        mRenderThread = null;
+        mThreadHandler = null;
+        return false;
+    }
+
+    @Override
+    public void onSurfaceTextureUpdated(SurfaceTexture surface) {
+    }
+
+    // Coalesces any number of updates into a single pending frame
+    private void requestFrame() {
+        Handler handler = mRenderHandler;
+        if (handler != null && mFrameRequested.compareAndSet(false, true)) {
+            handler.post(mScheduleFrame);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private void postFrameCallback() {
+        // Runs on the render thread, which gets its own Choreographer instance
+        if (mFrameCallback == null) {
+            mFrameCallback = new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    drawFrame();
+                }
+            };
+        }
+        Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mFrameCallback);
+    }
+
+    private void drawFrame() {
+        mFrameRequested.set(false);
+        // A frame callback may still fire after the surface was destroyed, and a new surface
+        // belongs to a new thread
+        Handler handler = mRenderHandler;
+        if (handler == null || handler.getLooper() != Looper.myLooper()) return;
+        long max = mMax;
+        long progress = mProgress;
+        Canvas canvas = lockCanvas();
+        if (canvas == null) return;
+        try {
+            canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+            drawProgress(canvas, progress, max, mWidth, mHeight);
+        } finally {
+            unlockCanvasAndPost(canvas);
+        }
+    }
+
+    private void drawProgress(Canvas canvas, long progress, long max, int w, int h) {
+        mBound.set(mPadding, mPadding, w - mPadding, h - mPadding);
+        float fraction = ProgressModel.fraction(progress, max);
+        float angle = fraction * 360f;
+        switch (mStyle) {
+            case PIE_DETERMINATE:
+                canvas.drawArc(mBound, 270, angle, true, mWhitePaint);
+                canvas.drawCircle(w / 2, h / 2, w / 2 - mPadding, mGreyPaint);
+                break;
+            case ANNULAR_DETERMINATE:
+                canvas.drawArc(mBound, 270, angle, false, mWhitePaint);
+                canvas.drawArc(mBound, 270 + angle, 360 - angle, false, mGreyPaint);
+                break;
+            case BAR_DETERMINATE:
+                mInBound.set(mBoundGap, mBoundGap,
+                        (w - mBoundGap) * fraction, h - mBoundGap);
+                canvas.drawRoundRect(mBound, mBound.height() / 2, mBound.height() / 2, mGreyPaint);
+                canvas.drawRoundRect(mInBound, mInBound.height() / 2, mInBound.height() / 2, mWhitePaint);
+                break;
+        }
+    }
+}
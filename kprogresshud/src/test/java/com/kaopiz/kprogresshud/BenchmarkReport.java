@@ -0,0 +1,102 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Collects timing samples of the benchmark tests and writes them as JSON, one entry per
+ * measured operation and subject, so that results can be compared release over release.
+ * The output directory is taken from the kprogresshud.benchmark.dir system property, set by
+ * the benchmark Gradle task that runs these tests apart from the unit tests.
+ */
+final class BenchmarkReport {
+
+    static final String DIR_PROPERTY = "kprogresshud.benchmark.dir";
+
+    interface Operation {
+        void run(int iteration);
+    }
+
+    private final String mName;
+    private final List<String> mEntries = new ArrayList<>();
+
+    BenchmarkReport(String name) {
+        mName = name;
+    }
+
+    /**
+     * Run the operation warmup + iterations times and record the timing of the last iterations.
+     */
+    void measure(String benchmark, String subject, int warmup, int iterations, Operation operation) {
+        for (int i = 0; i < warmup; i++) {
+            operation.run(i);
+        }
+        long[] samples = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            operation.run(warmup + i);
+            samples[i] = System.nanoTime() - start;
+        }
+        add(benchmark, subject, samples);
+    }
+
+    private void add(String benchmark, String subject, long[] samples) {
+        Arrays.sort(samples);
+        long total = 0;
+        for (long sample : samples) {
+            total += sample;
+        }
+        String entry = String.format(Locale.US,
+                "{\"benchmark\":\"%s\",\"subject\":\"%s\",\"iterations\":%d,"
+                        + "\"meanNanos\":%d,\"medianNanos\":%d,\"p90Nanos\":%d,\"minNanos\":%d}",
+                benchmark, subject, samples.length, total / samples.length,
+                samples[samples.length / 2], samples[samples.length * 9 / 10], samples[0]);
+        mEntries.add(entry);
+    }
+
+    /**
+     * @return The written file
+     */
+    File write() throws IOException {
+        File dir = new File(System.getProperty(DIR_PROPERTY, "build/reports/benchmarks"));
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        File file = new File(dir, mName + ".json");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write("{\"suite\":\"" + mName + "\",\"results\":[\n");
+            for (int i = 0; i < mEntries.size(); i++) {
+                writer.write(mEntries.get(i));
+                writer.write(i < mEntries.size() - 1 ? ",\n" : "\n");
+            }
+            writer.write("]}\n");
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+}
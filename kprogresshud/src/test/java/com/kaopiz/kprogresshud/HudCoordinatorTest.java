@@ -0,0 +1,142 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.app.Activity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowDialog;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class HudCoordinatorTest {
+
+    private KProgressHUD mHud;
+    private HudCoordinator mCoordinator;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mHud = new KProgressHUD(activity);
+        mCoordinator = new HudCoordinator(mHud);
+    }
+
+    @Test
+    public void showsOnFirstAcquireAndDismissesOnLastRelease() {
+        HudCoordinator.Token first = mCoordinator.acquire();
+        assertTrue(mHud.isShowing());
+        HudCoordinator.Token second = mCoordinator.acquire();
+        first.release();
+        assertTrue(mHud.isShowing());
+        assertEquals(1, mCoordinator.getActiveCount());
+        second.release();
+        assertFalse(mHud.isShowing());
+        assertEquals(0, mCoordinator.getActiveCount());
+    }
+
+    @Test
+    public void releasingTwiceHasNoEffect() {
+        HudCoordinator.Token first = mCoordinator.acquire();
+        mCoordinator.acquire();
+        first.release();
+        first.release();
+        assertEquals(1, mCoordinator.getActiveCount());
+        assertTrue(mHud.isShowing());
+    }
+
+    @Test
+    public void staysUpForTheMinimumShowTime() {
+        mCoordinator.setMinShowTime(500);
+        HudCoordinator.Token token = mCoordinator.acquire();
+        ShadowLooper.idleMainLooper(200, TimeUnit.MILLISECONDS);
+        token.release();
+        assertTrue(mHud.isShowing());
+        ShadowLooper.idleMainLooper(299, TimeUnit.MILLISECONDS);
+        assertTrue(mHud.isShowing());
+        ShadowLooper.idleMainLooper(1, TimeUnit.MILLISECONDS);
+        assertFalse(mHud.isShowing());
+    }
+
+    @Test
+    public void acquireDuringTheMinimumShowTimeKeepsTheHud() {
+        mCoordinator.setMinShowTime(500);
+        mCoordinator.acquire().release();
+        assertTrue(mHud.isShowing());
+        HudCoordinator.Token token = mCoordinator.acquire();
+        ShadowLooper.idleMainLooper(1000, TimeUnit.MILLISECONDS);
+        assertTrue(mHud.isShowing());
+        // The minimum show time has long passed
+        token.release();
+        assertFalse(mHud.isShowing());
+    }
+
+    @Test
+    public void showsAgainAfterTheUserCancelled() {
+        mHud.setCancellable(true);
+        HudCoordinator.Token first = mCoordinator.acquire();
+        ShadowDialog.getLatestDialog().cancel();
+        ShadowLooper.runUiThreadTasks();
+        assertFalse(mHud.isShowing());
+        // Still running, but the user asked for the HUD to go away
+        assertEquals(1, mCoordinator.getActiveCount());
+        HudCoordinator.Token second = mCoordinator.acquire();
+        assertTrue(mHud.isShowing());
+        first.release();
+        second.release();
+        assertFalse(mHud.isShowing());
+    }
+
+    @Test
+    public void showsAgainAfterAutoDismiss() {
+        mHud.setStyle(KProgressHUD.Style.PIE_DETERMINATE).setMaxProgress(100);
+        HudCoordinator.Token token = mCoordinator.acquire();
+        mHud.setProgress(100);
+        ShadowLooper.idleMainLooper(100, TimeUnit.MILLISECONDS);
+        assertFalse(mHud.isShowing());
+        token.release();
+        mCoordinator.acquire();
+        assertTrue(mHud.isShowing());
+    }
+
+    @Test
+    public void releaseFromWorkerThread() throws Exception {
+        final HudCoordinator.Token token = mCoordinator.acquire();
+        Thread worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                token.release();
+            }
+        });
+        worker.start();
+        worker.join();
+        assertTrue(mHud.isShowing());
+        ShadowLooper.runUiThreadTasks();
+        assertFalse(mHud.isShowing());
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.app.Activity;
+import android.app.Dialog;
+import android.view.View;
+import android.widget.TextView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowDialog;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class HudManagerTest {
+
+    private ActivityController<Activity> mController;
+    private boolean mDestroyed;
+    private HudManager mManager;
+
+    @Before
+    public void setUp() {
+        mController = Robolectric.buildActivity(Activity.class).setup();
+        mManager = HudManager.get(mController.get());
+    }
+
+    @After
+    public void tearDown() {
+        if (!mDestroyed) {
+            // Drops the manager of this Activity
+            mController.destroy();
+        }
+    }
+
+    @Test
+    public void sameContextSharesTheManager() {
+        assertSame(mManager, HudManager.get(mController.get()));
+    }
+
+    @Test
+    public void displaysTheHighestPriority() {
+        mManager.newRequest(0).setLabel("low").show();
+        mManager.newRequest(10).setLabel("high").show();
+        mManager.newRequest(5).setLabel("middle").show();
+        assertEquals("high", shownLabel());
+        assertEquals(3, mManager.getPendingCount());
+        assertEquals(1, ShadowDialog.getShownDialogs().size());
+    }
+
+    @Test
+    public void higherPriorityTakesOverTheSameWindow() {
+        HudManager.Request low = mManager.newRequest(0).setLabel("low").show();
+        Dialog window = ShadowDialog.getLatestDialog();
+        assertTrue(window.isShowing());
+        HudManager.Request high = mManager.newRequest(10).setLabel("high").show();
+        assertSame(window, ShadowDialog.getLatestDialog());
+        assertTrue(window.isShowing());
+        assertEquals("high", shownLabel());
+        // Back to the preempted request, still in the same window
+        high.finish();
+        assertSame(window, ShadowDialog.getLatestDialog());
+        assertTrue(window.isShowing());
+        assertEquals("low", shownLabel());
+        low.finish();
+        assertFalse(window.isShowing());
+    }
+
+    @Test
+    public void samePriorityIsFirstComeFirstShown() {
+        HudManager.Request first = mManager.newRequest(1).setLabel("first").show();
+        mManager.newRequest(1).setLabel("second").show();
+        assertEquals("first", shownLabel());
+        first.finish();
+        assertEquals("second", shownLabel());
+    }
+
+    @Test
+    public void finishingAQueuedRequestLeavesTheWindowUntouched() {
+        mManager.newRequest(10).setLabel("top").setDetailsLabel("details").show();
+        HudManager.Request queued = mManager.newRequest(0).setLabel("queued").show();
+        Dialog window = ShadowDialog.getLatestDialog();
+        TextView label = (TextView) window.findViewById(R.id.label);
+        CharSequence text = label.getText();
+        // Updates of a queued request are not displayed either
+        queued.setLabel("changed");
+        queued.finish();
+        assertEquals(1, mManager.getPendingCount());
+        assertSame(window, ShadowDialog.getLatestDialog());
+        assertSame(text, label.getText());
+        assertEquals("top", shownLabel());
+        assertEquals("details", shownDetailsLabel());
+    }
+
+    @Test
+    public void requestShownLaterWithLowerPriorityWaits() {
+        HudManager.Request high = mManager.newRequest(10).setLabel("high").show();
+        HudManager.Request late = mManager.newRequest(0).setLabel("late").show();
+        assertEquals("high", shownLabel());
+        high.finish();
+        assertEquals("late", shownLabel());
+        late.finish();
+        assertEquals(0, mManager.getPendingCount());
+        assertFalse(ShadowDialog.getLatestDialog().isShowing());
+    }
+
+    @Test
+    public void finishingTwiceOrBeforeShowHasNoEffect() {
+        HudManager.Request shown = mManager.newRequest(0).setLabel("shown").show();
+        HudManager.Request never = mManager.newRequest(10);
+        never.finish();
+        // A finished request cannot be shown any more
+        never.show();
+        shown.finish();
+        shown.finish();
+        assertEquals(0, mManager.getPendingCount());
+        assertFalse(ShadowDialog.getLatestDialog().isShowing());
+    }
+
+    @Test
+    public void detailsLabelFollowsTheDisplayedRequest() {
+        HudManager.Request low = mManager.newRequest(0).setLabel("low").setDetailsLabel("1 of 3").show();
+        assertEquals("1 of 3", shownDetailsLabel());
+        HudManager.Request high = mManager.newRequest(10).setLabel("high").show();
+        assertNull(shownDetailsLabel());
+        high.finish();
+        assertEquals("1 of 3", shownDetailsLabel());
+        low.setDetailsLabel("2 of 3");
+        assertEquals("2 of 3", shownDetailsLabel());
+    }
+
+    @Test
+    public void idleManagerRecyclesItsHud() {
+        HudManager.Request first = mManager.newRequest(0).setLabel("first").show();
+        Dialog window = ShadowDialog.getLatestDialog();
+        first.finish();
+        assertFalse(window.isShowing());
+        // The recycled HUD brings the same window back
+        mManager.newRequest(0).setLabel("second").show();
+        assertSame(window, ShadowDialog.getLatestDialog());
+        assertEquals("second", shownLabel());
+    }
+
+    @Test
+    public void requestsFromWorkerThreads() throws Exception {
+        final HudManager.Request request = mManager.newRequest(0).setLabel("worker");
+        Thread worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                request.show();
+            }
+        });
+        worker.start();
+        worker.join();
+        assertEquals(1, mManager.getPendingCount());
+        ShadowLooper.runUiThreadTasks();
+        assertEquals("worker", shownLabel());
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                request.finish();
+            }
+        });
+        worker.start();
+        worker.join();
+        ShadowLooper.runUiThreadTasks();
+        assertFalse(ShadowDialog.getLatestDialog().isShowing());
+    }
+
+    @Test
+    public void destroyingTheActivityFinishesEveryRequest() {
+        HudManager.Request request = mManager.newRequest(0).setLabel("shown").show();
+        Dialog window = ShadowDialog.getLatestDialog();
+        mController.destroy();
+        mDestroyed = true;
+        assertFalse(window.isShowing());
+        assertEquals(0, mManager.getPendingCount());
+        // Finished by the destruction, showing it again has no effect
+        request.show();
+        assertEquals(0, mManager.getPendingCount());
+    }
+
+    private static CharSequence shownLabel() {
+        return shownText(R.id.label);
+    }
+
+    private static CharSequence shownDetailsLabel() {
+        return shownText(R.id.details_label);
+    }
+
+    private static CharSequence shownText(int id) {
+        Dialog window = ShadowDialog.getLatestDialog();
+        assertTrue(window.isShowing());
+        TextView text = (TextView) window.findViewById(id);
+        return text.getVisibility() == View.VISIBLE ? text.getText().toString() : null;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LabelBuilderTest {
+
+    private final LabelBuilder mLabel = new LabelBuilder(4);
+
+    @Test
+    public void roundingCarriesIntoTheWholePart() {
+        assertEquals("10.00", text(mLabel.clear().append(9.999, 2)));
+        assertEquals("10.0", text(mLabel.clear().append(9.96, 1)));
+        assertEquals("1.00", text(mLabel.clear().append(0.9999, 2)));
+        assertEquals("100", text(mLabel.clear().append(99.5, 0)));
+        assertEquals("12.4", text(mLabel.clear().append(12.37, 1)));
+        assertEquals("0.05", text(mLabel.clear().append(0.05, 2)));
+    }
+
+    @Test
+    public void negativesAndZero() {
+        assertEquals("0", text(mLabel.clear().append(0L)));
+        assertEquals("-42", text(mLabel.clear().append(-42L)));
+        assertEquals("-9223372036854775808", text(mLabel.clear().append(Long.MIN_VALUE)));
+        assertEquals("0.00", text(mLabel.clear().append(0.0, 2)));
+        assertEquals("-1.5", text(mLabel.clear().append(-1.5, 1)));
+        assertEquals("-10.00", text(mLabel.clear().append(-9.999, 2)));
+        // Rounded to zero, no sign is left
+        assertEquals("0.00", text(mLabel.clear().append(-0.001, 2)));
+        assertEquals("0 B", text(mLabel.clear().appendBytes(0)));
+        assertEquals("-512 B", text(mLabel.clear().appendBytes(-512)));
+        assertEquals("-1.0 KB", text(mLabel.clear().appendBytes(-1024)));
+        assertEquals("-8.0 EB", text(mLabel.clear().appendBytes(Long.MIN_VALUE)));
+        assertEquals("0:00", text(mLabel.clear().appendDuration(0)));
+        assertEquals("0:00", text(mLabel.clear().appendDuration(-5000)));
+    }
+
+    @Test
+    public void byteUnitBoundaries() {
+        assertEquals("1023 B", text(mLabel.clear().appendBytes(1023)));
+        assertEquals("1.0 KB", text(mLabel.clear().appendBytes(1024)));
+        assertEquals("99.9 KB", text(mLabel.clear().appendBytes(102297)));
+        assertEquals("100 KB", text(mLabel.clear().appendBytes(102350)));
+        assertEquals("1023 KB", text(mLabel.clear().appendBytes(1023 * 1024)));
+        // Would round up to 1024 KB
+        assertEquals("1.0 MB", text(mLabel.clear().appendBytes(1024 * 1024 - 1)));
+        assertEquals("1.0 MB", text(mLabel.clear().appendBytes(1024 * 1024)));
+        assertEquals("12.4 MB", text(mLabel.clear().appendBytes(13002342)));
+        assertEquals("8.0 EB", text(mLabel.clear().appendBytes(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void longDurations() {
+        assertEquals("0:59", text(mLabel.clear().appendDuration(59499)));
+        assertEquals("1:00", text(mLabel.clear().appendDuration(59500)));
+        assertEquals("59:59", text(mLabel.clear().appendDuration(3599000)));
+        assertEquals("1:00:00", text(mLabel.clear().appendDuration(3599500)));
+        assertEquals("1:01:05", text(mLabel.clear().appendDuration(3665000)));
+        assertEquals("100:00:00", text(mLabel.clear().appendDuration(360000000L)));
+        assertEquals("2562047788015:12:56",
+                text(mLabel.clear().appendDuration(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void percentIsClamped() {
+        assertEquals("0%", text(mLabel.clear().appendPercent(-10, 100)));
+        assertEquals("0%", text(mLabel.clear().appendPercent(10, 0)));
+        assertEquals("0%", text(mLabel.clear().appendPercent(10, -100)));
+        assertEquals("29%", text(mLabel.clear().appendPercent(29, 100)));
+        assertEquals("99%", text(mLabel.clear().appendPercent(999, 1000)));
+        assertEquals("100%", text(mLabel.clear().appendPercent(100, 100)));
+        assertEquals("100%", text(mLabel.clear().appendPercent(250, 100)));
+        assertEquals("50%", text(mLabel.clear().appendPercent(Long.MAX_VALUE / 2, Long.MAX_VALUE)));
+        assertEquals("100%", text(mLabel.clear().appendPercent(Long.MAX_VALUE, Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void growsAndComparesContent() {
+        mLabel.clear().append("12.4 MB / ").appendBytes(300L << 20);
+        assertEquals("12.4 MB / 300 MB", mLabel.toString());
+        char[] chars = new char[mLabel.length()];
+        mLabel.getChars(chars);
+        assertTrue(mLabel.contentEquals(chars, chars.length));
+        assertFalse(mLabel.contentEquals(chars, chars.length - 1));
+        chars[0] = '2';
+        assertFalse(mLabel.contentEquals(chars, chars.length));
+    }
+
+    private static String text(LabelBuilder label) {
+        return label.toString();
+    }
+}
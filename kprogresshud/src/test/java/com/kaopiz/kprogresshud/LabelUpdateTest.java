@@ -0,0 +1,93 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.app.Activity;
+import android.app.Dialog;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowDialog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Labels of a shown HUD only reach their TextView when the text changed. Every setText call
+ * gives the TextView a new text instance, so an unchanged instance means no call was made.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class LabelUpdateTest {
+
+    private KProgressHUD mHud;
+    private final LabelBuilder mBuilder = new LabelBuilder();
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mHud = new KProgressHUD(activity);
+    }
+
+    @Test
+    public void unchangedBuilderLabelIsNotSetAgain() {
+        mHud.setDetailsLabel(mBuilder.clear().appendBytes(1024 * 1024)).show();
+        TextView view = detailsLabel();
+        CharSequence shown = view.getText();
+        assertEquals("1.0 MB", shown.toString());
+        mHud.setDetailsLabel(mBuilder.clear().appendBytes(1024 * 1024));
+        assertSame(shown, view.getText());
+    }
+
+    @Test
+    public void changedBuilderLabelUpdatesTheView() {
+        mHud.setDetailsLabel(mBuilder.clear().appendBytes(1024 * 1024)).show();
+        TextView view = detailsLabel();
+        CharSequence shown = view.getText();
+        mHud.setDetailsLabel(mBuilder.clear().appendBytes(2 * 1024 * 1024));
+        assertNotSame(shown, view.getText());
+        assertEquals("2.0 MB", view.getText().toString());
+        // Same length, different text
+        mHud.setDetailsLabel(mBuilder.clear().appendBytes(3 * 1024 * 1024));
+        assertEquals("3.0 MB", view.getText().toString());
+    }
+
+    @Test
+    public void unchangedStringLabelIsNotSetAgain() {
+        mHud.setLabel("Loading").show();
+        TextView view = (TextView) dialog().findViewById(R.id.label);
+        CharSequence shown = view.getText();
+        mHud.setLabel("Loading");
+        assertSame(shown, view.getText());
+        mHud.setLabel("Saving");
+        assertEquals("Saving", view.getText().toString());
+    }
+
+    private static Dialog dialog() {
+        return ShadowDialog.getLatestDialog();
+    }
+
+    private static TextView detailsLabel() {
+        return (TextView) dialog().findViewById(R.id.details_label);
+    }
+}
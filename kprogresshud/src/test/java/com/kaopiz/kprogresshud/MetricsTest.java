@@ -0,0 +1,209 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.app.Activity;
+import android.content.DialogInterface;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowDialog;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class MetricsTest {
+
+    private static final int FRAME_MS = 16;
+
+    private Activity mActivity;
+    private KProgressHUD mHud;
+    private RecordingListener mListener;
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        mListener = new RecordingListener();
+        mHud = new KProgressHUD(mActivity).setMetricsListener(mListener);
+    }
+
+    @Test
+    public void shownReportsTheLatency() {
+        mHud.show();
+        assertEquals(0, mListener.mShown);
+        drawFrame(dialogWindow());
+        assertEquals(1, mListener.mShown);
+        assertTrue(mListener.mShowLatencyNanos >= 0);
+        // Only the first frame shows the HUD
+        drawFrame(dialogWindow());
+        assertEquals(1, mListener.mShown);
+    }
+
+    @Test
+    public void dismissedReportsTheTotals() {
+        mHud.show();
+        View window = dialogWindow();
+        drawFrame(window);
+        drawFrame(window);
+        ShadowLooper.idleMainLooper(100, TimeUnit.MILLISECONDS);
+        mHud.dismiss();
+        assertEquals(1, mListener.mDismissed);
+        assertTrue(mListener.mFramesDrawn >= 2);
+        assertTrue(mListener.mVisibleDurationNanos >= 0);
+        // Nothing left to report
+        mHud.dismiss();
+        assertEquals(1, mListener.mDismissed);
+        assertEquals(0, mListener.mGraceSuppressed);
+    }
+
+    @Test
+    public void progressReportedBetweenFramesIsAppliedOnce() {
+        mHud.setStyle(KProgressHUD.Style.PIE_DETERMINATE).setMaxProgress(100).show();
+        drawFrame(dialogWindow());
+        mHud.setProgress(10);
+        mHud.setProgress(20);
+        mHud.setProgress(30);
+        drawFrame(dialogWindow());
+        mHud.setProgress(40);
+        drawFrame(dialogWindow());
+        mHud.dismiss();
+        assertEquals(4, mListener.mProgressReceived);
+        assertEquals(2, mListener.mProgressApplied);
+    }
+
+    @Test
+    public void dismissInsideTheGraceTimeIsSuppressed() {
+        mHud.setGraceTime(500).show();
+        ShadowLooper.idleMainLooper(200, TimeUnit.MILLISECONDS);
+        assertFalse(mHud.isShowing());
+        mHud.dismiss();
+        assertEquals(1, mListener.mGraceSuppressed);
+        assertEquals(0, mListener.mShown);
+        assertEquals(0, mListener.mDismissed);
+        // The suppressed show must not come up later
+        ShadowLooper.idleMainLooper(1000, TimeUnit.MILLISECONDS);
+        assertFalse(mHud.isShowing());
+        assertEquals(0, mListener.mDismissed);
+    }
+
+    @Test
+    public void dialogCancelIsReportedOnce() {
+        mHud.setCancellable(true).show();
+        drawFrame(dialogWindow());
+        ShadowDialog.getLatestDialog().cancel();
+        ShadowLooper.runUiThreadTasks();
+        assertFalse(mHud.isShowing());
+        assertEquals(1, mListener.mDismissed);
+    }
+
+    @Test
+    public void overlayCancelIsReportedOnce() {
+        final int[] cancelled = new int[1];
+        mHud.setOverlayMode(true).setCancellable(new DialogInterface.OnCancelListener() {
+            @Override
+            public void onCancel(DialogInterface dialog) {
+                cancelled[0]++;
+            }
+        }).show();
+        View decor = mActivity.getWindow().getDecorView();
+        drawFrame(decor);
+        DialogInterface overlay = findOverlay(decor);
+        assertNotNull(overlay);
+        overlay.cancel();
+        ShadowLooper.runUiThreadTasks();
+        assertFalse(mHud.isShowing());
+        assertEquals(1, cancelled[0]);
+        assertEquals(1, mListener.mDismissed);
+    }
+
+    private static View dialogWindow() {
+        return ShadowDialog.getLatestDialog().getWindow().getDecorView();
+    }
+
+    /**
+     * Run the pending frame, then make sure the window draws once more whether or not the
+     * shadowed view root traversed.
+     */
+    private static void drawFrame(View window) {
+        ShadowLooper.idleMainLooper(FRAME_MS, TimeUnit.MILLISECONDS);
+        window.getViewTreeObserver().dispatchOnPreDraw();
+    }
+
+    private static DialogInterface findOverlay(View view) {
+        if (view instanceof DialogInterface) {
+            return (DialogInterface) view;
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                DialogInterface overlay = findOverlay(group.getChildAt(i));
+                if (overlay != null) {
+                    return overlay;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copies the metrics when reported, as the instance is reused by the next show.
+     */
+    private static class RecordingListener implements HudMetricsListener {
+
+        int mShown;
+        int mDismissed;
+        int mGraceSuppressed;
+        long mShowLatencyNanos = -1;
+        long mVisibleDurationNanos = -1;
+        int mFramesDrawn;
+        long mProgressReceived;
+        long mProgressApplied;
+
+        @Override
+        public void onShown(KProgressHUD hud, HudMetrics metrics) {
+            mShown++;
+            mShowLatencyNanos = metrics.getShowLatencyNanos();
+        }
+
+        @Override
+        public void onDismissed(KProgressHUD hud, HudMetrics metrics) {
+            mDismissed++;
+            mVisibleDurationNanos = metrics.getVisibleDurationNanos();
+            mFramesDrawn = metrics.getFramesDrawn();
+            mProgressReceived = metrics.getProgressReceived();
+            mProgressApplied = metrics.getProgressApplied();
+        }
+
+        @Override
+        public void onGraceSuppressed(KProgressHUD hud) {
+            mGraceSuppressed++;
+        }
+    }
+}
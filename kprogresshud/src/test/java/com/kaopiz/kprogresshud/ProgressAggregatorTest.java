@@ -0,0 +1,161 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.View;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class ProgressAggregatorTest {
+
+    private static final int FRAME_MS = 16;
+
+    private KProgressHUD mHud;
+    private RecordingView mView;
+    private ProgressAggregator mAggregator;
+
+    @Before
+    public void setUp() {
+        ShadowChoreographer.setPostFrameCallbackDelay(FRAME_MS);
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mView = new RecordingView(activity);
+        mHud = new KProgressHUD(activity).setCustomView(mView).show();
+        mAggregator = new ProgressAggregator(mHud);
+    }
+
+    @After
+    public void tearDown() {
+        mHud.dismiss();
+        // Let the frame clock run its last frame, so that no frame is pending across tests
+        frames(2);
+        ShadowChoreographer.setPostFrameCallbackDelay(0);
+    }
+
+    @Test
+    public void reportsTheSumOfAllTasks() {
+        ProgressAggregator.Task first = mAggregator.newTask(100);
+        ProgressAggregator.Task second = mAggregator.newTask(200);
+        first.setProgress(100);
+        second.addProgress(50);
+        frames(3);
+        assertEquals(ProgressAggregator.PROGRESS_RESOLUTION, mView.mMax);
+        assertEquals(ProgressAggregator.PROGRESS_RESOLUTION / 2, mView.mProgress);
+    }
+
+    @Test
+    public void dismissesOnlyOnceEveryTaskCompleted() {
+        ProgressAggregator.Task first = mAggregator.newTask(100);
+        ProgressAggregator.Task second = mAggregator.newTask(100);
+        first.complete();
+        // Reaching the total is not completion
+        second.setProgress(100);
+        frames(3);
+        assertEquals(ProgressAggregator.PROGRESS_RESOLUTION, mView.mProgress);
+        assertTrue(mHud.isShowing());
+        second.complete();
+        frames(2);
+        assertFalse(mHud.isShowing());
+    }
+
+    @Test
+    public void lateTaskKeepsTheHud() {
+        ProgressAggregator.Task first = mAggregator.newTask(100);
+        frames(2);
+        first.complete();
+        ProgressAggregator.Task late = mAggregator.newTask(100);
+        frames(3);
+        assertTrue(mHud.isShowing());
+        assertEquals(ProgressAggregator.PROGRESS_RESOLUTION / 2, mView.mProgress);
+        late.complete();
+        frames(2);
+        assertFalse(mHud.isShowing());
+    }
+
+    @Test
+    public void tasksReportFromWorkerThreads() throws Exception {
+        final ProgressAggregator.Task[] tasks = new ProgressAggregator.Task[4];
+        Thread[] workers = new Thread[tasks.length];
+        for (int i = 0; i < tasks.length; i++) {
+            final ProgressAggregator.Task task = mAggregator.newTask(1000);
+            tasks[i] = task;
+            workers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        task.addProgress(1);
+                    }
+                }
+            });
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        frames(3);
+        assertEquals(ProgressAggregator.PROGRESS_RESOLUTION, mView.mProgress);
+        assertTrue(mHud.isShowing());
+        for (ProgressAggregator.Task task : tasks) {
+            task.complete();
+        }
+        frames(2);
+        assertFalse(mHud.isShowing());
+    }
+
+    private static void frames(int count) {
+        for (int i = 0; i < count; i++) {
+            ShadowLooper.idleMainLooper(FRAME_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static class RecordingView extends View implements Determinate {
+
+        int mMax;
+        int mProgress;
+
+        RecordingView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void setMax(int max) {
+            mMax = max;
+        }
+
+        @Override
+        public void setProgress(int progress) {
+            mProgress = progress;
+        }
+    }
+}
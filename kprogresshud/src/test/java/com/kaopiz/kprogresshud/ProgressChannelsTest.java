@@ -0,0 +1,144 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.kaopiz.kprogresshud;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class ProgressChannelsTest {
+
+    private static final int SIZE = 2500;
+
+    private final RecordingDeterminate mTarget = new RecordingDeterminate();
+    private File mFile;
+
+    @Before
+    public void setUp() throws IOException {
+        mFile = File.createTempFile("progress", ".bin");
+        FileOutputStream out = new FileOutputStream(mFile);
+        try {
+            out.write(new byte[SIZE]);
+        } finally {
+            out.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        //noinspection ResultOfMethodCallIgnored
+        mFile.delete();
+    }
+
+    @Test
+    public void transferToReportsEachChunk() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        FileChannel src = new RandomAccessFile(mFile, "r").getChannel();
+        try {
+            long done = ProgressChannels.transferTo(src, 0, SIZE, Channels.newChannel(sink),
+                    mTarget, 1000);
+            assertEquals(SIZE, done);
+        } finally {
+            src.close();
+        }
+        assertEquals(SIZE, sink.size());
+        assertEquals(Arrays.asList(1000L, 2000L, 2500L), mTarget.mReports);
+    }
+
+    @Test
+    public void shortTransferToReportsWhatWasTransferred() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        FileChannel src = new RandomAccessFile(mFile, "r").getChannel();
+        try {
+            long done = ProgressChannels.transferTo(src, 500, 10000, Channels.newChannel(sink),
+                    mTarget, 1000);
+            assertEquals(SIZE - 500, done);
+        } finally {
+            src.close();
+        }
+        assertEquals(SIZE - 500, mTarget.last());
+    }
+
+    @Test
+    public void transferFromReportsEachChunk() throws IOException {
+        FileChannel dst = new RandomAccessFile(mFile, "rw").getChannel();
+        try {
+            dst.truncate(0);
+            long done = ProgressChannels.transferFrom(
+                    Channels.newChannel(new ByteArrayInputStream(new byte[SIZE])), dst, 0, SIZE,
+                    mTarget, 1000);
+            assertEquals(SIZE, done);
+            assertEquals(SIZE, dst.size());
+        } finally {
+            dst.close();
+        }
+        assertEquals(Arrays.asList(1000L, 2000L, 2500L), mTarget.mReports);
+    }
+
+    @Test
+    public void shortTransferFromStopsWhenTheSourceRunsOut() throws IOException {
+        FileChannel dst = new RandomAccessFile(mFile, "rw").getChannel();
+        try {
+            dst.truncate(0);
+            long done = ProgressChannels.transferFrom(
+                    Channels.newChannel(new ByteArrayInputStream(new byte[1500])), dst, 0, 10000,
+                    mTarget, 1000);
+            assertEquals(1500, done);
+        } finally {
+            dst.close();
+        }
+        assertEquals(Arrays.asList(1000L, 1500L), mTarget.mReports);
+    }
+
+    @Test
+    public void readableChannelReportsAtTheEnd() throws IOException {
+        ProgressReadableChannel channel = new ProgressReadableChannel(
+                Channels.newChannel(new ByteArrayInputStream(new byte[SIZE])), mTarget, 1000);
+        ByteBuffer buffer = ByteBuffer.allocate(700);
+        while (channel.read(buffer) >= 0) {
+            buffer.clear();
+        }
+        assertEquals(SIZE, channel.getCount());
+        // The next step is counted from the last report, the end of the channel reports again
+        assertEquals(Arrays.asList(1400L, 2500L, 2500L), mTarget.mReports);
+    }
+
+    @Test
+    public void writableChannelReportsOnClose() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        ProgressWritableChannel channel = new ProgressWritableChannel(
+                Channels.newChannel(sink), mTarget, 1000);
+        channel.write(ByteBuffer.allocate(1200));
+        channel.write(ByteBuffer.allocate(300));
+        assertEquals(Arrays.asList(1200L), mTarget.mReports);
+        channel.close();
+        assertEquals(Arrays.asList(1200L, 1500L), mTarget.mReports);
+        assertEquals(1500, sink.size());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.kaopiz.kprogresshud;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ProgressStreamTest {
+
+    private final RecordingDeterminate mTarget = new RecordingDeterminate();
+
+    @Test
+    public void readsReportOncePerStepAndAtTheEnd() throws IOException {
+        ProgressInputStream in = new ProgressInputStream(stream(25), mTarget, 10);
+        byte[] buffer = new byte[4];
+        while (in.read(buffer, 0, buffer.length) >= 0) {
+            // Drain
+        }
+        assertEquals(Arrays.asList(12L, 24L, 25L), mTarget.mReports);
+        assertEquals(25, in.getCount());
+    }
+
+    @Test
+    public void reportsOnReachingTheStepExactly() throws IOException {
+        ProgressInputStream in = new ProgressInputStream(stream(30), mTarget, 10);
+        byte[] buffer = new byte[10];
+        assertEquals(10, in.read(buffer, 0, 10));
+        assertEquals(Arrays.asList(10L), mTarget.mReports);
+        assertEquals(9, in.read(buffer, 0, 9));
+        assertEquals(1, mTarget.mReports.size());
+        assertEquals(1, in.read(buffer, 0, 1));
+        assertEquals(Arrays.asList(10L, 20L), mTarget.mReports);
+    }
+
+    @Test
+    public void countsSkippedBytes() throws IOException {
+        ProgressInputStream in = new ProgressInputStream(stream(30), mTarget, 10);
+        assertEquals(15, in.skip(15));
+        assertEquals(15, in.getCount());
+        assertEquals(Arrays.asList(15L), mTarget.mReports);
+    }
+
+    @Test
+    public void endOfStreamIsNotCounted() throws IOException {
+        ProgressInputStream in = new ProgressInputStream(stream(3), mTarget, 100);
+        int read = 0;
+        while (in.read() >= 0) {
+            read++;
+        }
+        assertEquals(3, read);
+        assertEquals(-1, in.read());
+        assertEquals(3, in.getCount());
+        // Each end of stream reports the exact count
+        assertEquals(Arrays.asList(3L, 3L), mTarget.mReports);
+    }
+
+    @Test
+    public void markIsNotSupported() throws IOException {
+        ProgressInputStream in = new ProgressInputStream(stream(3), mTarget, 100);
+        assertTrue(!in.markSupported());
+        try {
+            in.reset();
+            throw new AssertionError("reset() must fail");
+        } catch (IOException expected) {
+            // Rewinding would make the progress go backwards
+        }
+    }
+
+    @Test
+    public void writesReportOncePerStepAndOnFlush() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        ProgressOutputStream out = new ProgressOutputStream(sink, mTarget, 10);
+        out.write(new byte[8], 0, 8);
+        out.write(1);
+        assertEquals(0, mTarget.mReports.size());
+        out.write(new byte[3], 0, 3);
+        assertEquals(Arrays.asList(12L), mTarget.mReports);
+        out.write(new byte[2], 0, 2);
+        out.flush();
+        assertEquals(Arrays.asList(12L, 14L), mTarget.mReports);
+        assertEquals(14, sink.size());
+    }
+
+    @Test
+    public void closeReportsTheExactCount() throws IOException {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        ProgressOutputStream out = new ProgressOutputStream(sink, mTarget, 100);
+        byte[] data = new byte[] { 1, 2, 3, 4, 5 };
+        out.write(data, 0, data.length);
+        out.close();
+        assertEquals(5, mTarget.last());
+        assertEquals(5, out.getCount());
+        assertArrayEquals(data, sink.toByteArray());
+    }
+
+    @Test
+    public void intTargetsAreClamped() throws IOException {
+        final long[] ints = new long[1];
+        Determinate target = new Determinate() {
+            @Override
+            public void setMax(int max) {
+            }
+
+            @Override
+            public void setProgress(int progress) {
+                ints[0] = progress;
+            }
+        };
+        // Skips as far as asked, so the count can pass the int range without data
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                return 0;
+            }
+
+            @Override
+            public long skip(long n) {
+                return n;
+            }
+        };
+        ProgressInputStream in = new ProgressInputStream(endless, target, 10);
+        in.skip(3000000000L);
+        assertEquals(Integer.MAX_VALUE, ints[0]);
+        assertEquals(3000000000L, in.getCount());
+    }
+
+    private static InputStream stream(int size) {
+        return new ByteArrayInputStream(new byte[size]);
+    }
+}
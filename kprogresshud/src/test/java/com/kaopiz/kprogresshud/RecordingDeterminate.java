@@ -0,0 +1,49 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package com.kaopiz.kprogresshud;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records every progress value it is given, as a 64-bit target like the HUD.
+ */
+class RecordingDeterminate implements LongDeterminate {
+
+    final List<Long> mReports = new ArrayList<>();
+
+    @Override
+    public void setMax(int max) {
+    }
+
+    @Override
+    public void setMax(long max) {
+    }
+
+    @Override
+    public void setProgress(int progress) {
+        mReports.add((long) progress);
+    }
+
+    @Override
+    public void setProgress(long progress) {
+        mReports.add(progress);
+    }
+
+    long last() {
+        return mReports.get(mReports.size() - 1);
+    }
+}
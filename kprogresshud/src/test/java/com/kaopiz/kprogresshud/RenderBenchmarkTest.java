@@ -0,0 +1,141 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Headless cost of every HUD style: show() including dialog creation and layout inflation,
+ * and measure and draw of each built-in indicator on a software canvas. Results are written
+ * to render.json in the benchmark report directory. Excluded from the unit tests, run with
+ * the benchmark Gradle task.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class RenderBenchmarkTest {
+
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    private static BenchmarkReport sReport;
+
+    private Activity mActivity;
+
+    @BeforeClass
+    public static void createReport() {
+        sReport = new BenchmarkReport("render");
+    }
+
+    @AfterClass
+    public static void writeReport() throws Exception {
+        assertTrue(sReport.write().isFile());
+    }
+
+    @Before
+    public void setUp() {
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+    }
+
+    @Test
+    public void show() {
+        for (final KProgressHUD.Style style : KProgressHUD.Style.values()) {
+            sReport.measure("show", style.name(), WARMUP, ITERATIONS, new BenchmarkReport.Operation() {
+                @Override
+                public void run(int iteration) {
+                    // A new HUD every time, so each show creates the dialog and inflates the layout
+                    KProgressHUD hud = new KProgressHUD(mActivity).setStyle(style);
+                    hud.show();
+                    hud.dismiss();
+                }
+            });
+        }
+    }
+
+    @Test
+    public void showReused() {
+        for (final KProgressHUD.Style style : KProgressHUD.Style.values()) {
+            final KProgressHUD hud = new KProgressHUD(mActivity).setStyle(style);
+            sReport.measure("showReused", style.name(), WARMUP, ITERATIONS, new BenchmarkReport.Operation() {
+                @Override
+                public void run(int iteration) {
+                    hud.show();
+                    hud.dismiss();
+                }
+            });
+        }
+    }
+
+    @Test
+    public void measure() {
+        for (final View view : createIndicators()) {
+            sReport.measure("onMeasure", name(view), WARMUP, ITERATIONS, new BenchmarkReport.Operation() {
+                @Override
+                public void run(int iteration) {
+                    view.forceLayout();
+                    view.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
+                }
+            });
+        }
+    }
+
+    @Test
+    public void draw() {
+        for (final View view : createIndicators()) {
+            view.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
+            view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+            final Canvas canvas = new Canvas(Bitmap.createBitmap(view.getMeasuredWidth(),
+                    view.getMeasuredHeight(), Bitmap.Config.ARGB_8888));
+            sReport.measure("onDraw", name(view), WARMUP, ITERATIONS, new BenchmarkReport.Operation() {
+                @Override
+                public void run(int iteration) {
+                    if (view instanceof Determinate) {
+                        // Every frame shows a different value, as during a running transfer
+                        ((Determinate) view).setProgress(iteration % 100);
+                    }
+                    view.draw(canvas);
+                }
+            });
+        }
+    }
+
+    private View[] createIndicators() {
+        return new View[] {
+                new SpinView(mActivity),
+                new PieView(mActivity),
+                new AnnularView(mActivity),
+                new BarView(mActivity)
+        };
+    }
+
+    private static String name(View view) {
+        return view.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.app.Activity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowDialog;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Binding the HUD to work: {@link KProgressHUD#execute(Executor, Callable, TaskCallback)} and
+ * {@link KProgressHUD#track(Future)}.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class TaskBindingTest {
+
+    private KProgressHUD mHud;
+    private DeferredExecutor mExecutor;
+    private RecordingCallback mCallback;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mHud = new KProgressHUD(activity);
+        mExecutor = new DeferredExecutor();
+        mCallback = new RecordingCallback();
+    }
+
+    @Test
+    public void dismissesOnSuccess() {
+        mHud.execute(mExecutor, returning("done"), mCallback);
+        assertTrue(mHud.isShowing());
+        mExecutor.runPending();
+        ShadowLooper.runUiThreadTasks();
+        assertFalse(mHud.isShowing());
+        assertEquals("done", mCallback.mResult);
+        assertEquals(1, mCallback.mCalls);
+    }
+
+    @Test
+    public void dismissesOnFailure() {
+        final IOException error = new IOException("failed");
+        mHud.execute(mExecutor, new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                throw error;
+            }
+        }, mCallback);
+        mExecutor.runPending();
+        ShadowLooper.runUiThreadTasks();
+        assertFalse(mHud.isShowing());
+        assertSame(error, mCallback.mError);
+        assertEquals(1, mCallback.mCalls);
+    }
+
+    @Test
+    public void fastTaskNeverShowsWithinTheGraceTime() {
+        mHud.setGraceTime(500);
+        mHud.execute(mExecutor, returning("fast"), mCallback);
+        ShadowLooper.idleMainLooper(200, TimeUnit.MILLISECONDS);
+        mExecutor.runPending();
+        ShadowLooper.runUiThreadTasks();
+        ShadowLooper.idleMainLooper(1000, TimeUnit.MILLISECONDS);
+        assertFalse(mHud.isShowing());
+        assertNull(ShadowDialog.getLatestDialog());
+        assertEquals("fast", mCallback.mResult);
+    }
+
+    @Test
+    public void slowTaskShowsOnceTheGraceTimePassed() {
+        mHud.setGraceTime(500);
+        mHud.execute(mExecutor, returning("slow"), mCallback);
+        ShadowLooper.idleMainLooper(499, TimeUnit.MILLISECONDS);
+        assertFalse(mHud.isShowing());
+        ShadowLooper.idleMainLooper(1, TimeUnit.MILLISECONDS);
+        assertTrue(mHud.isShowing());
+        mExecutor.runPending();
+        ShadowLooper.runUiThreadTasks();
+        assertFalse(mHud.isShowing());
+    }
+
+    @Test
+    public void cancellingTheHudCancelsTheTask() {
+        mHud.setCancellable(true);
+        Future<String> future = mHud.execute(mExecutor, returning("never"), mCallback);
+        ShadowDialog.getLatestDialog().cancel();
+        ShadowLooper.runUiThreadTasks();
+        assertTrue(future.isCancelled());
+        assertFalse(mHud.isShowing());
+        assertTrue(mCallback.mCancelled);
+        assertEquals(1, mCallback.mCalls);
+        // The cancelled task does not run any more
+        mExecutor.runPending();
+        ShadowLooper.runUiThreadTasks();
+        assertEquals(1, mCallback.mCalls);
+    }
+
+    @Test
+    public void cancellingTheHudCancelsTrackedWork() {
+        mHud.setCancellable(true);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        mHud.track(future);
+        ShadowDialog.getLatestDialog().cancel();
+        ShadowLooper.runUiThreadTasks();
+        assertTrue(future.isCancelled());
+        assertFalse(mHud.isShowing());
+    }
+
+    @Test
+    public void tracksCompletableFutureCompletion() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        mHud.track(future);
+        assertTrue(mHud.isShowing());
+        future.completeExceptionally(new IOException("failed"));
+        ShadowLooper.runUiThreadTasks();
+        assertFalse(mHud.isShowing());
+    }
+
+    @Test
+    public void pollsOtherFutures() {
+        FutureTask<String> task = new FutureTask<>(returning("polled"));
+        mHud.track(task);
+        task.run();
+        assertTrue(mHud.isShowing());
+        ShadowLooper.idleMainLooper(100, TimeUnit.MILLISECONDS);
+        assertFalse(mHud.isShowing());
+    }
+
+    @Test
+    public void laterBindingReplacesTheEarlierOne() {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        mHud.track(first);
+        CompletableFuture<String> second = new CompletableFuture<>();
+        mHud.track(second);
+        first.complete("first");
+        ShadowLooper.runUiThreadTasks();
+        assertTrue(mHud.isShowing());
+        second.complete("second");
+        ShadowLooper.runUiThreadTasks();
+        assertFalse(mHud.isShowing());
+    }
+
+    private static Callable<String> returning(final String result) {
+        return new Callable<String>() {
+            @Override
+            public String call() {
+                return result;
+            }
+        };
+    }
+
+    /**
+     * Runs submitted work only when asked to, standing in for a background thread.
+     */
+    private static class DeferredExecutor implements Executor {
+
+        private Runnable mPending;
+
+        @Override
+        public void execute(Runnable command) {
+            mPending = command;
+        }
+
+        void runPending() {
+            Runnable pending = mPending;
+            mPending = null;
+            pending.run();
+        }
+    }
+
+    private static class RecordingCallback implements TaskCallback<String> {
+
+        int mCalls;
+        String mResult;
+        Throwable mError;
+        boolean mCancelled;
+
+        @Override
+        public void onSuccess(String result) {
+            mCalls++;
+            mResult = result;
+        }
+
+        @Override
+        public void onFailure(Throwable error) {
+            mCalls++;
+            mError = error;
+        }
+
+        @Override
+        public void onCancelled() {
+            mCalls++;
+            mCancelled = true;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ *    Copyright 2015 Kaopiz Software Co., Ltd.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.kaopiz.kprogresshud;
+
+import android.app.Activity;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.view.Choreographer;
+import android.view.View;
+
+import com.kaopiz.kprogresshud.core.GraceTimer;
+import com.kaopiz.kprogresshud.core.ProgressCoalescer;
+import com.kaopiz.kprogresshud.core.ProgressModel;
+import com.kaopiz.kprogresshud.core.RateEstimator;
+import com.kaopiz.kprogresshud.core.SpinClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Fails when a hot path of the library starts allocating: progress reporting and applying it
+ * on real frames, the draw and progress paths of the determinate views, and spinner frames
+ * of an attached spinner. Tracing stays on. Each case must fit a fixed byte budget, whatever
+ * the number of iterations.
+ * Frames run through the shadowed Choreographer, whose own posting allocates: frame cases
+ * subtract a baseline loop running the same frames without the code under test. Invalidation
+ * and canvas drawing are stubbed out, so the allocations of the Robolectric graphics shadows
+ * are not counted.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class ZeroAllocationTest {
+
+    private static final int WARMUP = 1000;
+    private static final int ITERATIONS = 10000;
+    private static final int FRAME_MS = 16;
+    // Reading the allocation counter allocates a few bytes per measurement
+    private static final long BUDGET_BYTES = 256;
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private Activity mActivity;
+    private KProgressHUD mHud;
+    private final Canvas mCanvas = new NullCanvas();
+    // Keeps the frame clock waking up on every frame, so that a baseline loop posts exactly
+    // the Choreographer callbacks of the measured loop
+    private final FrameClock.Callback mTicker = new FrameClock.Callback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+        }
+    };
+    private Method mTraceReset;
+
+    @Before
+    public void setUp() {
+        assumeTrue(AllocationCounter.isSupported());
+        ShadowChoreographer.setPostFrameCallbackDelay(FRAME_MS);
+        mActivity = Robolectric.buildActivity(Activity.class).setup().get();
+        setTraceCapture(false);
+    }
+
+    @After
+    public void tearDown() {
+        if (mHud != null) {
+            mHud.dismiss();
+        }
+        FrameClock.getInstance().removeCallback(mTicker);
+        // Let the frame clock run its last frame, so that no frame is pending across tests
+        frame();
+        frame();
+        ShadowChoreographer.setPostFrameCallbackDelay(0);
+        setTraceCapture(true);
+    }
+
+    @Test
+    public void frameClock() {
+        final Choreographer choreographer = Choreographer.getInstance();
+        Choreographer.FrameCallback bare = new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                choreographer.postFrameCallbackDelayed(this, 0);
+            }
+        };
+        choreographer.postFrameCallbackDelayed(bare, 0);
+        long baseline = countFrames(null);
+        choreographer.removeFrameCallback(bare);
+        frame();
+        FrameClock.getInstance().addCallback(mTicker);
+        assertFramesWithinBudget("FrameClock", countFrames(null), baseline);
+    }
+
+    @Test
+    public void hudProgressFrames() {
+        final int[] applied = new int[1];
+        PieView view = new PieView(mActivity) {
+            @Override
+            public void setProgress(int progress) {
+                super.setProgress(progress);
+                applied[0]++;
+            }
+
+            @Override
+            public void invalidate() {
+            }
+        };
+        mHud = new KProgressHUD(mActivity)
+                .setCustomView(view)
+                .setMaxProgress(Long.MAX_VALUE)
+                .show();
+        assertTrue(mHud.isShowing());
+        FrameClock.getInstance().addCallback(mTicker);
+        long baseline = countFrames(null);
+        // Every frame applies the progress reported since the last one
+        long bytes = countFrames(new AllocationCounter.Operation() {
+            @Override
+            public void run(int iteration) {
+                mHud.setProgress((long) iteration);
+            }
+        });
+        assertTrue(applied[0] > 0);
+        assertFramesWithinBudget("KProgressHUD.setProgress", bytes, baseline);
+    }
+
+    @Test
+    public void formattedLabel() {
+        final KProgressHUD hud = new KProgressHUD(mActivity);
+        final LabelBuilder label = new LabelBuilder();
+        assertNoAllocation("LabelBuilder", new AllocationCounter.Operation() {
+            @Override
+            public void run(int iteration) {
+                label.clear().appendBytes(iteration * 4096L).append(" / ").appendBytes(300L << 20)
+                        .append(" (").appendPercent(iteration, ITERATIONS).append(", ")
+                        .appendDuration(iteration * 1000L).append(')');
+                hud.setDetailsLabel(label);
+            }
+        });
+    }
+
+    @Test
+    public void pieView() {
+        final PieView view = new PieView(mActivity) {
+            @Override
+            public void invalidate() {
+            }
+        };
+        layout(view);
+        assertProgressWithoutAllocation("PieView", view);
+        assertNoAllocation("PieView.onDraw", new AllocationCounter.Operation() {
+            @Override
+            public void run(int iteration) {
+                view.setProgress(iteration % ITERATIONS);
+                view.onDraw(mCanvas);
+            }
+        });
+    }
+
+    @Test
+    public void annularView() {
+        final AnnularView view = new AnnularView(mActivity) {
+            @Override
+            public void invalidate() {
+            }
+        };
+        layout(view);
+        assertProgressWithoutAllocation("AnnularView", view);
+        assertNoAllocation("AnnularView.onDraw", new AllocationCounter.Operation() {
+            @Override
+            public void run(int iteration) {
+                view.setProgress(iteration % ITERATIONS);
+                view.onDraw(mCanvas);
+            }
+        });
+    }
+
+    @Test
+    public void barView() {
+        final BarView view = new BarView(mActivity) {
+            @Override
+            public void invalidate(int l, int t, int r, int b) {
+            }
+        };
+        layout(view);
+        assertProgressWithoutAllocation("BarView", view);
+        assertNoAllocation("BarView.onDraw", new AllocationCounter.Operation() {
+            @Override
+            public void run(int iteration) {
+                view.setProgress(iteration % ITERATIONS);
+                view.onDraw(mCanvas);
+            }
+        });
+    }
+
+    @Test
+    public void spinViewFrames() {
+        final int[] steps = new int[1];
+        SpinView view = new SpinView(mActivity) {
+            @Override
+            public void invalidate() {
+                steps[0]++;
+            }
+        };
+        FrameClock.getInstance().addCallback(mTicker);
+        long baseline = countFrames(null);
+        // Attached through a shown HUD, the spinner paces itself on the shared frame clock
+        mHud = new KProgressHUD(mActivity).setCustomView(view).show();
+        frame();
+        assertTrue(view.getWindowToken() != null);
+        long bytes = countFrames(null);
+        assertTrue(steps[0] > 0);
+        assertFramesWithinBudget("SpinView.doFrame", bytes, baseline);
+    }
+
+    @Test
+    public void coreModel() {
+        final ProgressModel model = new ProgressModel();
+        model.setMax(10000000000L);
+        final ProgressCoalescer coalescer = new ProgressCoalescer();
+        final SpinClock clock = new SpinClock(12, 12);
+        final GraceTimer timer = new GraceTimer();
+        timer.setGraceTime(300);
+        final RateEstimator estimator = new RateEstimator();
+        assertNoAllocation("core", new AllocationCounter.Operation() {
+            @Override
+            public void run(int iteration) {
+                coalescer.offer(iteration);
+                long progress = coalescer.drain();
+                model.toIntProgress(progress);
+                model.isComplete(progress);
+                ProgressModel.quantize(progress, model.getMax(), 1440);
+                clock.advance(iteration * 16666667L);
+                timer.requestShow();
+                timer.onGraceElapsed();
+                timer.dismiss();
+                estimator.update(progress, iteration * 16666667L);
+                estimator.getRemainingNanos(model.getMax());
+            }
+        });
+    }
+
+    private void layout(View view) {
+        view.measure(View.MeasureSpec.UNSPECIFIED, View.MeasureSpec.UNSPECIFIED);
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+
+    private void assertProgressWithoutAllocation(String name, final Determinate view) {
+        view.setMax(ITERATIONS);
+        assertNoAllocation(name + ".setProgress", new AllocationCounter.Operation() {
+            @Override
+            public void run(int iteration) {
+                view.setProgress(iteration % ITERATIONS);
+            }
+        });
+    }
+
+    private void assertNoAllocation(String name, final AllocationCounter.Operation operation) {
+        long bytes = AllocationCounter.count(WARMUP, ITERATIONS, new AllocationCounter.Operation() {
+            @Override
+            public void run(int iteration) {
+                operation.run(iteration);
+                clearTrace();
+            }
+        });
+        assertTrue(name + " allocated " + bytes + " bytes in " + ITERATIONS
+                + " iterations, over the budget of " + BUDGET_BYTES, bytes <= BUDGET_BYTES);
+    }
+
+    private static void assertFramesWithinBudget(String name, long bytes, long baseline) {
+        assertTrue(name + " allocated " + bytes + " bytes in " + ITERATIONS + " frames, "
+                        + baseline + " without it, over the budget of " + BUDGET_BYTES,
+                bytes - baseline <= BUDGET_BYTES);
+    }
+
+    /**
+     * Count the bytes allocated by running frames, each after the operation if any.
+     */
+    private long countFrames(final AllocationCounter.Operation beforeFrame) {
+        return AllocationCounter.count(WARMUP, ITERATIONS, new AllocationCounter.Operation() {
+            @Override
+            public void run(int iteration) {
+                if (beforeFrame != null) {
+                    beforeFrame.run(iteration);
+                }
+                frame();
+                clearTrace();
+            }
+        });
+    }
+
+    private static void frame() {
+        ShadowLooper.idleMainLooper(FRAME_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The Robolectric trace shadow records every section, where the platform only checks a flag
+     * while no trace is captured. Turn recording off where the shadow allows it, otherwise
+     * clear the recorded sections after each iteration.
+     */
+    private void setTraceCapture(boolean enabled) {
+        mTraceReset = null;
+        try {
+            Class<?> shadow = Class.forName("org.robolectric.shadows.ShadowTrace");
+            try {
+                shadow.getMethod("setEnabled", boolean.class).invoke(null, enabled);
+            } catch (NoSuchMethodException e) {
+                if (!enabled) {
+                    mTraceReset = shadow.getMethod("reset");
+                }
+            }
+        } catch (Exception e) {
+            // No trace shadow, nothing is recorded
+        }
+    }
+
+    private void clearTrace() {
+        if (mTraceReset == null) return;
+        try {
+            mTraceReset.invoke(null, NO_ARGS);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Canvas that draws nothing, so that drawing costs only the code of the view.
+     */
+    private static class NullCanvas extends Canvas {
+
+        @Override
+        public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter,
+                            Paint paint) {
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        }
+
+        @Override
+        public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        }
+    }
+}